@@ -0,0 +1,66 @@
+package com.danianepg.predicateexclusionrules.controller;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.danianepg.predicateexclusionrules.data.RuleValueImportDTO;
+import com.danianepg.predicateexclusionrules.repository.ValidationRuleRepository;
+import com.danianepg.predicateexclusionrules.service.RuleValueImportService;
+
+/**
+ * Endpoint to import large lists of rule values. The request body is text/plain with one value per line, see
+ * com.danianepg.predicateexclusionrules.service.RuleValueImportService. It is decoded with the charset of the
+ * Content-Type, UTF-8 by default, and read as a stream of lines, so it is never loaded in memory at once.
+ *
+ * For example: curl -X POST -H "Content-Type: text/plain" --data-binary @blocklist.txt
+ * http://localhost:8080/exclusionRules/1/values
+ *
+ * @author Daniane P. Gomes
+ *
+ */
+@RestController
+public class RuleValueImportController {
+
+  @Autowired
+  private ValidationRuleRepository validationRuleRepository;
+
+  @Autowired
+  private RuleValueImportService ruleValueImportService;
+
+  @PostMapping(path = "/exclusionRules/{id}/values", consumes = MediaType.TEXT_PLAIN_VALUE)
+  public RuleValueImportDTO importValues(@PathVariable("id") final Long id, final HttpServletRequest request)
+      throws IOException {
+
+    if (!this.validationRuleRepository.existsById(id)) {
+      throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Exclusion rule " + id + " not found");
+    }
+
+    return this.ruleValueImportService.importValues(id,
+        new InputStreamReader(request.getInputStream(), this.getCharset(request)));
+  }
+
+  private Charset getCharset(final HttpServletRequest request) {
+
+    try {
+      final Charset charset = MediaType.parseMediaType(request.getHeader(HttpHeaders.CONTENT_TYPE)).getCharset();
+      return charset != null ? charset : StandardCharsets.UTF_8;
+
+    } catch (final IllegalArgumentException e) {
+      throw new ResponseStatusException(HttpStatus.UNSUPPORTED_MEDIA_TYPE, e.getMessage());
+    }
+  }
+
+}
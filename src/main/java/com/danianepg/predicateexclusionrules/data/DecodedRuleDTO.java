@@ -0,0 +1,95 @@
+package com.danianepg.predicateexclusionrules.data;
+
+import java.util.List;
+import java.util.Set;
+
+import com.danianepg.predicateexclusionrules.enums.ComparatorEnum;
+import com.danianepg.predicateexclusionrules.enums.NormalizationEnum;
+import com.danianepg.predicateexclusionrules.enums.OperatorEnum;
+
+/**
+ * Rule of exclusion with its values already split, before being compiled.
+ *
+ * @author Daniane P. Gomes
+ *
+ */
+public class DecodedRuleDTO {
+
+  private String fieldName;
+
+  private OperatorEnum operator;
+
+  private ComparatorEnum comparator;
+
+  private Set<NormalizationEnum> normalizations;
+
+  private List<String> values;
+
+  public DecodedRuleDTO(final String fieldName, final OperatorEnum operator, final ComparatorEnum comparator,
+      final Set<NormalizationEnum> normalizations, final List<String> values) {
+    this.fieldName = fieldName;
+    this.operator = operator;
+    this.comparator = comparator;
+    this.normalizations = normalizations;
+    this.values = values;
+  }
+
+  /**
+   * Rules compiled to the EQUALS/OR values of com.danianepg.predicateexclusionrules.rules.FieldRules.
+   *
+   * @return
+   */
+  public boolean isEqualsOr() {
+    return this.comparator == ComparatorEnum.EQUALS && this.operator == OperatorEnum.OR;
+  }
+
+  /**
+   * Rules compiled to the CONTAINS/OR values of com.danianepg.predicateexclusionrules.rules.FieldRules.
+   *
+   * @return
+   */
+  public boolean isContainsOr() {
+    return !this.isEqualsOr() && this.operator == OperatorEnum.OR;
+  }
+
+  public String getFieldName() {
+    return this.fieldName;
+  }
+
+  public void setFieldName(final String fieldName) {
+    this.fieldName = fieldName;
+  }
+
+  public OperatorEnum getOperator() {
+    return this.operator;
+  }
+
+  public void setOperator(final OperatorEnum operator) {
+    this.operator = operator;
+  }
+
+  public ComparatorEnum getComparator() {
+    return this.comparator;
+  }
+
+  public void setComparator(final ComparatorEnum comparator) {
+    this.comparator = comparator;
+  }
+
+  public Set<NormalizationEnum> getNormalizations() {
+    return this.normalizations;
+  }
+
+  public void setNormalizations(final Set<NormalizationEnum> normalizations) {
+    this.normalizations = normalizations;
+  }
+
+  public List<String> getValues() {
+    return this.values;
+  }
+
+  public void setValues(final List<String> values) {
+    this.values = values;
+  }
+
+}
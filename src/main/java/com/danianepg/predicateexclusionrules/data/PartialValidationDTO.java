@@ -0,0 +1,59 @@
+package com.danianepg.predicateexclusionrules.data;
+
+import java.util.List;
+
+/**
+ * Result of a batch validation limited by time. Only the objects before the cursor were evaluated; the validation can
+ * be resumed by calling it again with the same list and this cursor.
+ *
+ * @author Daniane P. Gomes
+ *
+ */
+public class PartialValidationDTO {
+
+  /**
+   * Valid objects among the ones evaluated, in the same order as the list.
+   */
+  private List<PersonDTO> validLst;
+
+  /**
+   * Position of the first object not evaluated yet.
+   */
+  private int cursor;
+
+  /**
+   * True when all the objects of the list were evaluated.
+   */
+  private boolean complete;
+
+  public PartialValidationDTO(final List<PersonDTO> validLst, final int cursor, final boolean complete) {
+    this.validLst = validLst;
+    this.cursor = cursor;
+    this.complete = complete;
+  }
+
+  public List<PersonDTO> getValidLst() {
+    return this.validLst;
+  }
+
+  public void setValidLst(final List<PersonDTO> validLst) {
+    this.validLst = validLst;
+  }
+
+  public int getCursor() {
+    return this.cursor;
+  }
+
+  public void setCursor(final int cursor) {
+    this.cursor = cursor;
+  }
+
+  public boolean isComplete() {
+    return this.complete;
+  }
+
+  public void setComplete(final boolean complete) {
+    this.complete = complete;
+  }
+
+}
@@ -0,0 +1,68 @@
+package com.danianepg.predicateexclusionrules.data;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Records whose validity changed after the rules of exclusion changed.
+ *
+ * @author Daniane P. Gomes
+ *
+ */
+public class RevalidationDeltaDTO {
+
+  /**
+   * Fields that have rule values added or removed.
+   */
+  private Set<String> affectedFields;
+
+  /**
+   * Number of records evaluated again because one of their field values matched a changed rule value.
+   */
+  private int reevaluated;
+
+  private List<Long> becameValid;
+
+  private List<Long> becameInvalid;
+
+  public RevalidationDeltaDTO(final Set<String> affectedFields, final int reevaluated, final List<Long> becameValid,
+      final List<Long> becameInvalid) {
+    this.affectedFields = affectedFields;
+    this.reevaluated = reevaluated;
+    this.becameValid = becameValid;
+    this.becameInvalid = becameInvalid;
+  }
+
+  public Set<String> getAffectedFields() {
+    return this.affectedFields;
+  }
+
+  public void setAffectedFields(final Set<String> affectedFields) {
+    this.affectedFields = affectedFields;
+  }
+
+  public int getReevaluated() {
+    return this.reevaluated;
+  }
+
+  public void setReevaluated(final int reevaluated) {
+    this.reevaluated = reevaluated;
+  }
+
+  public List<Long> getBecameValid() {
+    return this.becameValid;
+  }
+
+  public void setBecameValid(final List<Long> becameValid) {
+    this.becameValid = becameValid;
+  }
+
+  public List<Long> getBecameInvalid() {
+    return this.becameInvalid;
+  }
+
+  public void setBecameInvalid(final List<Long> becameInvalid) {
+    this.becameInvalid = becameInvalid;
+  }
+
+}
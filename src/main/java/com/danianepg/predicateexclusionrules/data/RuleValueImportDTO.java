@@ -0,0 +1,65 @@
+package com.danianepg.predicateexclusionrules.data;
+
+/**
+ * Result of a bulk import of rule values.
+ *
+ * @author Daniane P. Gomes
+ *
+ */
+public class RuleValueImportDTO {
+
+  private Long ruleId;
+
+  private long importedValues;
+
+  /**
+   * Number of rule values removed by the optimizer from the rules published after the import.
+   */
+  private int removedPatterns;
+
+  /**
+   * Stored records whose validity changed with the imported values.
+   */
+  private RevalidationDeltaDTO revalidation;
+
+  public RuleValueImportDTO(final Long ruleId, final long importedValues, final int removedPatterns,
+      final RevalidationDeltaDTO revalidation) {
+    this.ruleId = ruleId;
+    this.importedValues = importedValues;
+    this.removedPatterns = removedPatterns;
+    this.revalidation = revalidation;
+  }
+
+  public Long getRuleId() {
+    return this.ruleId;
+  }
+
+  public void setRuleId(final Long ruleId) {
+    this.ruleId = ruleId;
+  }
+
+  public long getImportedValues() {
+    return this.importedValues;
+  }
+
+  public void setImportedValues(final long importedValues) {
+    this.importedValues = importedValues;
+  }
+
+  public int getRemovedPatterns() {
+    return this.removedPatterns;
+  }
+
+  public void setRemovedPatterns(final int removedPatterns) {
+    this.removedPatterns = removedPatterns;
+  }
+
+  public RevalidationDeltaDTO getRevalidation() {
+    return this.revalidation;
+  }
+
+  public void setRevalidation(final RevalidationDeltaDTO revalidation) {
+    this.revalidation = revalidation;
+  }
+
+}
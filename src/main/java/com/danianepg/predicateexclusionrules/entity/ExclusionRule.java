@@ -42,10 +42,17 @@ public class ExclusionRule {
   private ComparatorEnum comparator;
 
   /**
-   * Set of strings that are not allowed on the attribute 'fieldName', separated by comma.
+   * Set of strings that are not allowed on the attribute 'fieldName', separated by comma. Large sets should be
+   * imported as com.danianepg.predicateexclusionrules.entity.ExclusionRuleValue instead.
    */
   private String ruleValues;
 
+  /**
+   * Set of com.danianepg.predicateexclusionrules.enums.NormalizationEnum applied to the ruleValues and to the value of
+   * the attribute 'fieldName' before comparing them, separated by comma. When empty, values are compared as they are.
+   */
+  private String normalizations;
+
   public Long getId() {
     return this.id;
   }
@@ -86,4 +93,12 @@ public class ExclusionRule {
     this.ruleValues = ruleValues;
   }
 
+  public String getNormalizations() {
+    return this.normalizations;
+  }
+
+  public void setNormalizations(final String normalizations) {
+    this.normalizations = normalizations;
+  }
+
 }
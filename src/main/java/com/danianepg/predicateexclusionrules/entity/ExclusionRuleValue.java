@@ -0,0 +1,68 @@
+package com.danianepg.predicateexclusionrules.entity;
+
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+/**
+ * Entity to represent a single value of a rule, used for large lists of values imported in bulk. These values are
+ * added to the values saved on com.danianepg.predicateexclusionrules.entity.ExclusionRule#ruleValues.
+ *
+ * @author Daniane P. Gomes
+ *
+ */
+@Entity
+@Table(indexes = @Index(columnList = "rule_id"))
+public class ExclusionRuleValue {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  /**
+   * Rule that the value belongs to. Values are deleted with their rule.
+   */
+  @ManyToOne(fetch = FetchType.LAZY, optional = false)
+  @JoinColumn(name = "rule_id")
+  @OnDelete(action = OnDeleteAction.CASCADE)
+  private ExclusionRule rule;
+
+  /**
+   * String that is not allowed on the attribute 'fieldName' of the rule.
+   */
+  private String ruleValue;
+
+  public Long getId() {
+    return this.id;
+  }
+
+  public void setId(final Long id) {
+    this.id = id;
+  }
+
+  public ExclusionRule getRule() {
+    return this.rule;
+  }
+
+  public void setRule(final ExclusionRule rule) {
+    this.rule = rule;
+  }
+
+  public String getRuleValue() {
+    return this.ruleValue;
+  }
+
+  public void setRuleValue(final String ruleValue) {
+    this.ruleValue = ruleValue;
+  }
+
+}
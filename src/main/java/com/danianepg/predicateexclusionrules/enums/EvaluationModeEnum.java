@@ -0,0 +1,13 @@
+package com.danianepg.predicateexclusionrules.enums;
+
+/**
+ * How a batch of objects is evaluated against the rules of exclusion.
+ *
+ * @author Daniane P. Gomes
+ *
+ */
+public enum EvaluationModeEnum {
+
+  SEQUENTIAL,
+  PARALLEL;
+}
@@ -0,0 +1,75 @@
+package com.danianepg.predicateexclusionrules.enums;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Normalization applied to the rule values and to the field value before comparing them. The modes are always applied
+ * in the order they are declared here, whatever the order they were saved on the rule. NFKC comes first because it maps
+ * spaces such as the no-break space to a plain space, which TRIM can then remove.
+ *
+ * CASE_FOLD maps the value to upper case and then to lower case, so characters whose upper case expands to several
+ * characters fold like them, e.g. 'straße' and 'STRASSE' both become 'strasse', and the final sigma folds like the
+ * other sigmas.
+ *
+ * Each mode returns the same string instance when there is nothing to change, so a value that is already normalized
+ * is never copied.
+ *
+ * @author Daniane P. Gomes
+ *
+ */
+public enum NormalizationEnum {
+
+  NFKC {
+    @Override
+    public String apply(final String value) {
+      return Normalizer.isNormalized(value, Normalizer.Form.NFKC) ? value
+          : Normalizer.normalize(value, Normalizer.Form.NFKC);
+    }
+  },
+  TRIM {
+    @Override
+    public String apply(final String value) {
+      return value.strip();
+    }
+  },
+  CASE_FOLD {
+    @Override
+    public String apply(final String value) {
+      if (isFoldedAscii(value)) {
+        return value;
+      }
+
+      final String folded = value.toUpperCase(Locale.ROOT).toLowerCase(Locale.ROOT);
+      return folded.equals(value) ? value : folded;
+    }
+  };
+
+  public abstract String apply(String value);
+
+  private static boolean isFoldedAscii(final String value) {
+    for (int i = 0; i < value.length(); i++) {
+      final char c = value.charAt(i);
+      if (c > 0x7F || c >= 'A' && c <= 'Z') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Apply all the normalizations to a value.
+   *
+   * @param value
+   * @param normalizations
+   * @return
+   */
+  public static String normalize(final String value, final Set<NormalizationEnum> normalizations) {
+    String normalized = value;
+    for (final NormalizationEnum normalization : normalizations) {
+      normalized = normalization.apply(normalized);
+    }
+    return normalized;
+  }
+}
@@ -0,0 +1,64 @@
+package com.danianepg.predicateexclusionrules.repository;
+
+import java.sql.PreparedStatement;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Access to the values of com.danianepg.predicateexclusionrules.entity.ExclusionRuleValue through JDBC, so large lists
+ * are written in batches and read row by row without creating one entity per value.
+ *
+ * @author Daniane P. Gomes
+ *
+ */
+@Repository
+public class ExclusionRuleValueRepository {
+
+  private static final int FETCH_SIZE = 1000;
+
+  // @formatter:off
+  private static final String FIND_ALL_ORDERED = "SELECT v.rule_id, v.rule_value "
+      + "FROM exclusion_rule_value v JOIN exclusion_rule r ON r.id = v.rule_id "
+      + "ORDER BY CASE WHEN r.operator = 'OR' AND r.comparator = 'CONTAINS' THEN 0 WHEN r.operator = 'OR' THEN 1 "
+      + "ELSE 2 END, LENGTH(v.rule_value)";
+  // @formatter:on
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  /**
+   * Insert all the values of a rule in a single JDBC batch.
+   *
+   * @param ruleId
+   * @param values
+   */
+  public void batchInsert(final Long ruleId, final List<String> values) {
+    // @formatter:off
+    this.jdbcTemplate.batchUpdate("INSERT INTO exclusion_rule_value(rule_id, rule_value) VALUES(?, ?)",
+        values, values.size(), (ps, value) -> {
+          ps.setLong(1, ruleId);
+          ps.setString(2, value);
+        });
+    // @formatter:on
+  }
+
+  /**
+   * Read all the values row by row. Values of CONTAINS/OR rules come first, then the values of EQUALS/OR rules and
+   * then the values of the other rules, each shortest first.
+   *
+   * @param consumer receives the rule id and the value
+   */
+  public void forEachValue(final BiConsumer<Long, String> consumer) {
+    this.jdbcTemplate.query(con -> {
+      final PreparedStatement ps = con.prepareStatement(FIND_ALL_ORDERED);
+      ps.setFetchSize(FETCH_SIZE);
+      return ps;
+    }, (RowCallbackHandler) rs -> consumer.accept(rs.getLong(1), rs.getString(2)));
+  }
+
+}
@@ -0,0 +1,55 @@
+package com.danianepg.predicateexclusionrules.rules;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Snapshot of all the compiled rules of exclusion, grouped by field name. A snapshot is never changed once it is
+ * built, so it can be read by many threads while a new one is being built.
+ *
+ * @author Daniane P. Gomes
+ *
+ */
+public class CompiledRules {
+
+  private final Map<String, List<FieldRules>> rulesByField;
+
+  private final int removedPatterns;
+
+  public CompiledRules(final Collection<FieldRules> fieldRules, final int removedPatterns) {
+    // @formatter:off
+    this.rulesByField = Collections.unmodifiableMap(fieldRules.stream()
+        .filter(rules -> !rules.isEmpty())
+        .collect(Collectors.groupingBy(FieldRules::getFieldName, LinkedHashMap::new,
+            Collectors.collectingAndThen(Collectors.toList(), Collections::unmodifiableList))));
+    // @formatter:on
+    this.removedPatterns = removedPatterns;
+  }
+
+  /**
+   * Rules by field name. For each field, one FieldRules for each set of normalizations.
+   *
+   * @return
+   */
+  public Map<String, List<FieldRules>> getRulesByField() {
+    return this.rulesByField;
+  }
+
+  public List<FieldRules> getFieldRules() {
+    return this.rulesByField.values().stream().flatMap(List::stream).collect(Collectors.toList());
+  }
+
+  /**
+   * Number of rule values dropped by the optimization.
+   *
+   * @return
+   */
+  public int getRemovedPatterns() {
+    return this.removedPatterns;
+  }
+
+}
@@ -0,0 +1,129 @@
+package com.danianepg.predicateexclusionrules.rules;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import com.danianepg.predicateexclusionrules.data.DecodedRuleDTO;
+import com.danianepg.predicateexclusionrules.enums.NormalizationEnum;
+
+/**
+ * Build CompiledRules by adding rules and values one at a time. Values are normalized with the normalizations of their
+ * rule and optimized as they are added, see FieldRules.
+ *
+ * Values can be added in any order, but CONTAINS/OR values added first and shortest first are optimized as they are
+ * added, while the others are only optimized when the rules are built.
+ *
+ * A builder can start from existing CompiledRules to add values to them. The FieldRules of the existing snapshot are
+ * only copied when a value is added to them, so the existing snapshot is never changed.
+ *
+ * @author Daniane P. Gomes
+ *
+ */
+public class CompiledRulesBuilder {
+
+  private final Map<List<Object>, FieldRules> fieldRules = new LinkedHashMap<>();
+
+  private final Set<List<Object>> copiedKeys = new HashSet<>();
+
+  private int removedPatterns;
+
+  public CompiledRulesBuilder() {
+  }
+
+  public CompiledRulesBuilder(final CompiledRules base) {
+    base.getFieldRules()
+        .forEach(rules -> this.fieldRules.put(this.key(rules.getFieldName(), rules.getNormalizations()), rules));
+    this.removedPatterns = base.getRemovedPatterns();
+  }
+
+  /**
+   * Add a rule with all its values. CONTAINS/OR values are added shortest first.
+   *
+   * @param rule
+   */
+  public void addRule(final DecodedRuleDTO rule) {
+
+    if (rule.isEqualsOr() || rule.isContainsOr()) {
+      rule.getValues().stream().sorted(Comparator.comparingInt(String::length))
+          .forEach(value -> this.addValue(rule, value));
+
+    } else {
+      this.removedPatterns += this.getFieldRules(rule).addContainsAnd(this.normalize(rule, rule.getValues()));
+    }
+  }
+
+  /**
+   * Add one more value to an EQUALS/OR or CONTAINS/OR rule. Values of CONTAINS/AND rules can only be added all at once
+   * with addRule.
+   *
+   * @param rule
+   * @param value
+   */
+  public void addValue(final DecodedRuleDTO rule, final String value) {
+
+    if (!rule.isEqualsOr() && !rule.isContainsOr()) {
+      throw new IllegalArgumentException("Values of CONTAINS/AND rules must be added with the whole rule");
+    }
+
+    final FieldRules rules = this.getFieldRules(rule);
+    final String normalized = NormalizationEnum.normalize(value, rule.getNormalizations());
+    final boolean kept = rule.isEqualsOr() ? rules.addEqualsOr(normalized) : rules.addContainsOr(normalized);
+
+    if (!kept) {
+      this.removedPatterns++;
+    }
+  }
+
+  /**
+   * Number of values dropped so far. The values dropped when the rules are built are only counted by build.
+   *
+   * @return
+   */
+  public int getRemovedPatterns() {
+    return this.removedPatterns;
+  }
+
+  /**
+   * Compact the FieldRules changed by this builder, see FieldRules#compact, and create the CompiledRules.
+   *
+   * @return
+   */
+  public CompiledRules build() {
+    this.copiedKeys.forEach(key -> this.removedPatterns += this.fieldRules.get(key).compact());
+    return new CompiledRules(this.fieldRules.values(), this.removedPatterns);
+  }
+
+  private FieldRules getFieldRules(final DecodedRuleDTO rule) {
+
+    final List<Object> key = this.key(rule.getFieldName(), rule.getNormalizations());
+    FieldRules rules = this.fieldRules.get(key);
+
+    if (rules == null) {
+      rules = new FieldRules(rule.getFieldName(), rule.getNormalizations());
+    } else if (!this.copiedKeys.contains(key)) {
+      rules = new FieldRules(rules);
+    } else {
+      return rules;
+    }
+
+    this.fieldRules.put(key, rules);
+    this.copiedKeys.add(key);
+    return rules;
+  }
+
+  private List<String> normalize(final DecodedRuleDTO rule, final List<String> values) {
+    return values.stream().map(value -> NormalizationEnum.normalize(value, rule.getNormalizations()))
+        .collect(Collectors.toList());
+  }
+
+  private List<Object> key(final String fieldName, final Set<NormalizationEnum> normalizations) {
+    return Arrays.asList(fieldName, normalizations);
+  }
+
+}
@@ -0,0 +1,244 @@
+package com.danianepg.predicateexclusionrules.rules;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import com.danianepg.predicateexclusionrules.enums.NormalizationEnum;
+
+/**
+ * All the rules of exclusion of a field that share the same normalizations, merged into a single Predicate.
+ *
+ * Values are optimized as they are added, by checking each new value against the values already kept:
+ * - a CONTAINS/OR value is dropped when it contains a CONTAINS/OR value already kept, e.g. '12' is dropped when '1' is
+ * kept;
+ * - an EQUALS/OR value is dropped when it is duplicated or contains a CONTAINS/OR value already kept;
+ * - a CONTAINS/AND rule is added as a whole. Its values contained by another value of the same rule are dropped. The
+ * whole rule is dropped when one of its values contains a CONTAINS/OR value already kept, or when its values include
+ * all the values of a CONTAINS/AND rule already kept, e.g. 'a,b,c' is dropped when 'a,b' is kept. The CONTAINS/AND
+ * rules already kept that include all the values of the new rule are dropped in turn.
+ *
+ * A CONTAINS/OR value added after the values it covers, e.g. '1' after '12', does not drop them right away, because
+ * finding the values that contain it would compare it with every value. Instead, compact drops them all in a single
+ * pass once all the values were added. Adding CONTAINS/OR values first and shortest first leaves nothing to compact.
+ * The result is the same Predicate either way.
+ *
+ * @author Daniane P. Gomes
+ *
+ */
+public class FieldRules implements Predicate<String> {
+
+  /**
+   * CONTAINS/AND rules with more values than this are only deduplicated, because removing the values contained by other
+   * values of the same rule compares every pair of values.
+   */
+  static final int CONTAINS_AND_OPTIMIZATION_LIMIT = 1000;
+
+  private final String fieldName;
+
+  private final Set<NormalizationEnum> normalizations;
+
+  private ValueIndex containsOr;
+
+  private final Set<String> equalsOr;
+
+  private final Set<Set<String>> containsAnd;
+
+  /**
+   * Whether a CONTAINS/OR value was added that can cover values kept before it.
+   */
+  private boolean compactionNeeded;
+
+  public FieldRules(final String fieldName, final Set<NormalizationEnum> normalizations) {
+    this.fieldName = fieldName;
+    this.normalizations = normalizations;
+    this.containsOr = new ValueIndex();
+    this.equalsOr = new HashSet<>();
+    this.containsAnd = new LinkedHashSet<>();
+  }
+
+  public FieldRules(final FieldRules other) {
+    this.fieldName = other.fieldName;
+    this.normalizations = other.normalizations;
+    this.containsOr = new ValueIndex(other.containsOr);
+    this.equalsOr = new HashSet<>(other.equalsOr);
+    this.containsAnd = new LinkedHashSet<>(other.containsAnd);
+    this.compactionNeeded = other.compactionNeeded;
+  }
+
+  /**
+   * Add a normalized CONTAINS/OR value.
+   *
+   * @param value
+   * @return false if the value was dropped
+   */
+  public boolean addContainsOr(final String value) {
+
+    if (this.containsOr.isAnyContainedIn(value) || !this.containsOr.add(value)) {
+      return false;
+    }
+
+    if (value.length() < this.containsOr.getMaxLength() || !this.equalsOr.isEmpty() || !this.containsAnd.isEmpty()) {
+      this.compactionNeeded = true;
+    }
+
+    return true;
+  }
+
+  /**
+   * Add a normalized EQUALS/OR value.
+   *
+   * @param value
+   * @return false if the value was dropped
+   */
+  public boolean addEqualsOr(final String value) {
+    return !this.containsOr.isAnyContainedIn(value) && this.equalsOr.add(value);
+  }
+
+  /**
+   * Add a CONTAINS/AND rule with normalized values.
+   *
+   * @param values
+   * @return how many values were dropped
+   */
+  public int addContainsAnd(final Collection<String> values) {
+
+    final Set<String> distinct = new LinkedHashSet<>(values);
+    final Set<String> rule = distinct.size() <= CONTAINS_AND_OPTIMIZATION_LIMIT ? this.removeContainedValues(distinct)
+        : distinct;
+
+    if (rule.isEmpty() || rule.stream().anyMatch(this.containsOr::isAnyContainedIn)
+        || this.containsAnd.stream().anyMatch(rule::containsAll)) {
+      return values.size();
+    }
+
+    int removed = values.size() - rule.size();
+    for (final Iterator<Set<String>> iterator = this.containsAnd.iterator(); iterator.hasNext();) {
+      final Set<String> keptRule = iterator.next();
+      if (keptRule.containsAll(rule)) {
+        iterator.remove();
+        removed += keptRule.size();
+      }
+    }
+
+    this.containsAnd.add(Collections.unmodifiableSet(rule));
+    return removed;
+  }
+
+  /**
+   * Drop the values contained by another value of the same rule, since a field value that contains the longer value
+   * also contains the shorter one.
+   *
+   * @param values
+   * @return
+   */
+  private Set<String> removeContainedValues(final Set<String> values) {
+
+    final Set<String> longestFirst = new LinkedHashSet<>();
+    values.stream().sorted(Comparator.comparingInt(String::length).reversed()).forEach(value -> {
+      if (longestFirst.stream().noneMatch(keptValue -> keptValue.contains(value))) {
+        longestFirst.add(value);
+      }
+    });
+
+    return longestFirst;
+  }
+
+  /**
+   * Drop the values covered by a CONTAINS/OR value that was added after them. CONTAINS/OR values are added again
+   * shortest first, then the EQUALS/OR values and the CONTAINS/AND rules covered by them are dropped.
+   *
+   * @return how many values were dropped
+   */
+  public int compact() {
+
+    if (!this.compactionNeeded) {
+      return 0;
+    }
+
+    final ValueIndex compacted = new ValueIndex();
+    int removed = 0;
+
+    for (final Iterator<String> values = this.containsOr.stream().iterator(); values.hasNext();) {
+      final String value = values.next();
+      if (compacted.isAnyContainedIn(value)) {
+        removed++;
+      } else {
+        compacted.add(value);
+      }
+    }
+
+    this.containsOr = compacted;
+    this.compactionNeeded = false;
+
+    final int equalsOrSize = this.equalsOr.size();
+    this.equalsOr.removeIf(compacted::isAnyContainedIn);
+    removed += equalsOrSize - this.equalsOr.size();
+
+    for (final Iterator<Set<String>> iterator = this.containsAnd.iterator(); iterator.hasNext();) {
+      final Set<String> rule = iterator.next();
+      if (rule.stream().anyMatch(compacted::isAnyContainedIn)) {
+        iterator.remove();
+        removed += rule.size();
+      }
+    }
+
+    return removed;
+  }
+
+  @Override
+  public boolean test(final String normalizedValue) {
+    return this.equalsOr.contains(normalizedValue) || this.testContains(normalizedValue);
+  }
+
+  /**
+   * Test only the CONTAINS/OR values and the CONTAINS/AND rules.
+   *
+   * @param normalizedValue
+   * @return
+   */
+  public boolean testContains(final String normalizedValue) {
+    return this.containsOr.isAnyContainedIn(normalizedValue)
+        || this.containsAnd.stream().anyMatch(values -> values.stream().allMatch(normalizedValue::contains));
+  }
+
+  /**
+   * Whether there are CONTAINS/OR values or CONTAINS/AND rules, which can only be tested against each value.
+   *
+   * @return
+   */
+  public boolean hasContains() {
+    return this.containsOr.size() > 0 || !this.containsAnd.isEmpty();
+  }
+
+  public boolean isEmpty() {
+    return this.containsOr.size() == 0 && this.equalsOr.isEmpty() && this.containsAnd.isEmpty();
+  }
+
+  public String getFieldName() {
+    return this.fieldName;
+  }
+
+  public Set<NormalizationEnum> getNormalizations() {
+    return this.normalizations;
+  }
+
+  public Stream<String> getContainsOr() {
+    return this.containsOr.stream();
+  }
+
+  public Set<String> getEqualsOr() {
+    return Collections.unmodifiableSet(this.equalsOr);
+  }
+
+  public Set<Set<String>> getContainsAnd() {
+    return Collections.unmodifiableSet(this.containsAnd);
+  }
+
+}
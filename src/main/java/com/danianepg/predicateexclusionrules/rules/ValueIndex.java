@@ -0,0 +1,224 @@
+package com.danianepg.predicateexclusionrules.rules;
+
+import java.util.Arrays;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Set of strings grouped by length, to find out if any of them is contained in another string without comparing it
+ * with every value. For each distinct length, the hash of each region of that length is looked up in a hash table, so
+ * the cost depends on the length of the string tested and on how many distinct lengths there are, not on how many
+ * values there are.
+ *
+ * The hash is the one of String#hashCode, computed for each region from the hash of the previous region, and a match
+ * is confirmed with String#regionMatches. No string is created while testing.
+ *
+ * @author Daniane P. Gomes
+ *
+ */
+public class ValueIndex {
+
+  private final NavigableMap<Integer, Bucket> valuesByLength = new TreeMap<>();
+
+  private int size;
+
+  public ValueIndex() {
+  }
+
+  public ValueIndex(final ValueIndex other) {
+    other.valuesByLength.forEach((length, values) -> this.valuesByLength.put(length, new Bucket(values)));
+    this.size = other.size;
+  }
+
+  /**
+   * Add a value.
+   *
+   * @param value
+   * @return false if the value was already present
+   */
+  public boolean add(final String value) {
+    final boolean added = this.valuesByLength.computeIfAbsent(value.length(), Bucket::new).add(value);
+    if (added) {
+      this.size++;
+    }
+    return added;
+  }
+
+  /**
+   * Test if the value is present.
+   *
+   * @param value
+   * @return
+   */
+  public boolean contains(final String value) {
+    final Bucket values = this.valuesByLength.get(value.length());
+    return values != null && values.find(value, 0, value.hashCode());
+  }
+
+  /**
+   * Test if any of the values is contained in the text.
+   *
+   * @param text
+   * @return
+   */
+  public boolean isAnyContainedIn(final String text) {
+
+    for (final Bucket values : this.valuesByLength.headMap(text.length(), true).values()) {
+      if (values.isAnyContainedIn(text)) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  public int size() {
+    return this.size;
+  }
+
+  /**
+   * Length of the longest value, 0 when there are no values.
+   *
+   * @return
+   */
+  public int getMaxLength() {
+    return this.valuesByLength.isEmpty() ? 0 : this.valuesByLength.lastKey();
+  }
+
+  /**
+   * Values, shortest first.
+   *
+   * @return
+   */
+  public Stream<String> stream() {
+    return this.valuesByLength.values().stream().flatMap(Bucket::stream);
+  }
+
+  /**
+   * Values of the same length in an open addressing hash table, with linear probing, keyed by String#hashCode.
+   */
+  private static final class Bucket {
+
+    private final int length;
+
+    /**
+     * 31 to the power of length - 1, to remove the first character of a region from its hash.
+     */
+    private final int power;
+
+    private int[] hashes = new int[8];
+
+    private String[] values = new String[8];
+
+    private int size;
+
+    private Bucket(final int length) {
+      int power = 1;
+      for (int i = 1; i < length; i++) {
+        power *= 31;
+      }
+      this.length = length;
+      this.power = power;
+    }
+
+    private Bucket(final Bucket other) {
+      this.length = other.length;
+      this.power = other.power;
+      this.hashes = other.hashes.clone();
+      this.values = other.values.clone();
+      this.size = other.size;
+    }
+
+    private boolean add(final String value) {
+
+      final int hash = value.hashCode();
+      if (this.find(value, 0, hash)) {
+        return false;
+      }
+
+      if ((this.size + 1) * 2 > this.values.length) {
+        this.resize();
+      }
+
+      this.insert(hash, value);
+      this.size++;
+      return true;
+    }
+
+    private boolean isAnyContainedIn(final String text) {
+
+      int hash = 0;
+      for (int i = 0; i < this.length; i++) {
+        hash = 31 * hash + text.charAt(i);
+      }
+
+      for (int start = 0;; start++) {
+        if (this.find(text, start, hash)) {
+          return true;
+        }
+        if (start + this.length >= text.length()) {
+          return false;
+        }
+        hash = (hash - text.charAt(start) * this.power) * 31 + text.charAt(start + this.length);
+      }
+    }
+
+    /**
+     * Test if the region of text starting at start, with the length of this bucket and the hash given, is present.
+     *
+     * @param text
+     * @param start
+     * @param hash
+     * @return
+     */
+    private boolean find(final String text, final int start, final int hash) {
+
+      final int mask = this.values.length - 1;
+      for (int i = spread(hash) & mask; this.values[i] != null; i = (i + 1) & mask) {
+        if (this.hashes[i] == hash && text.regionMatches(start, this.values[i], 0, this.length)) {
+          return true;
+        }
+      }
+
+      return false;
+    }
+
+    private void insert(final int hash, final String value) {
+
+      final int mask = this.values.length - 1;
+      int i = spread(hash) & mask;
+      while (this.values[i] != null) {
+        i = (i + 1) & mask;
+      }
+
+      this.hashes[i] = hash;
+      this.values[i] = value;
+    }
+
+    private void resize() {
+
+      final int[] oldHashes = this.hashes;
+      final String[] oldValues = this.values;
+      this.hashes = new int[oldValues.length * 2];
+      this.values = new String[oldValues.length * 2];
+
+      for (int i = 0; i < oldValues.length; i++) {
+        if (oldValues[i] != null) {
+          this.insert(oldHashes[i], oldValues[i]);
+        }
+      }
+    }
+
+    private Stream<String> stream() {
+      return Arrays.stream(this.values).filter(Objects::nonNull);
+    }
+
+    private static int spread(final int hash) {
+      return hash ^ (hash >>> 16);
+    }
+
+  }
+
+}
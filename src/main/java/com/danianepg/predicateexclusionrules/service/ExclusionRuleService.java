@@ -1,28 +1,38 @@
 package com.danianepg.predicateexclusionrules.service;
 
 import java.lang.reflect.Field;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
-import java.util.Map.Entry;
-import java.util.function.Predicate;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import javax.annotation.PostConstruct;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import com.danianepg.predicateexclusionrules.data.PairDTO;
+import com.danianepg.predicateexclusionrules.data.DecodedRuleDTO;
+import com.danianepg.predicateexclusionrules.data.PartialValidationDTO;
 import com.danianepg.predicateexclusionrules.data.PersonDTO;
 import com.danianepg.predicateexclusionrules.entity.ExclusionRule;
-import com.danianepg.predicateexclusionrules.enums.ComparatorEnum;
-import com.danianepg.predicateexclusionrules.enums.OperatorEnum;
+import com.danianepg.predicateexclusionrules.enums.EvaluationModeEnum;
+import com.danianepg.predicateexclusionrules.enums.NormalizationEnum;
+import com.danianepg.predicateexclusionrules.repository.ExclusionRuleValueRepository;
 import com.danianepg.predicateexclusionrules.repository.ValidationRuleRepository;
-import com.danianepg.predicateexclusionrules.rules.RuleContainsAnd;
-import com.danianepg.predicateexclusionrules.rules.RuleContainsOr;
-import com.danianepg.predicateexclusionrules.rules.RuleEqualsOr;
+import com.danianepg.predicateexclusionrules.rules.CompiledRules;
+import com.danianepg.predicateexclusionrules.rules.CompiledRulesBuilder;
+import com.danianepg.predicateexclusionrules.rules.FieldRules;
 
 /**
  * Implementation of rules of exclusion. From a set of rules saved on the database, create validations that use
@@ -35,7 +45,11 @@ import com.danianepg.predicateexclusionrules.rules.RuleEqualsOr;
  * example "firstName" that is an attribute from the class first PersonDTO.
  * operator: AND or OR related to the ruleValues
  * comparator: EQUALS or CONTAINS related to the ruleValues
- * ruleValues: strings that are not allowed on the attribute, separated by comma.
+ * ruleValues: strings that are not allowed on the attribute, separated by comma. Large lists can also be imported in
+ * bulk to com.danianepg.predicateexclusionrules.entity.ExclusionRuleValue through
+ * com.danianepg.predicateexclusionrules.service.RuleValueImportService.
+ * normalizations: optional TRIM, NFKC or CASE_FOLD, separated by comma, applied to the ruleValues once when the rule is
+ * decoded and to the attribute value once per object before comparing.
  *
  * For example, the saved rules
  *
@@ -56,6 +70,14 @@ import com.danianepg.predicateexclusionrules.rules.RuleEqualsOr;
  * 'jupiter,mars')
  * can be interpreted: "all the PersonDTO objects where the attribute location equals 'jupiter' or 'mars' are invalid".
  *
+ * INSERT INTO exclusion_rule(field_name, comparator, operator, rule_values, normalizations) VALUES('company',
+ * 'EQUALS', 'OR', 'cyberdyne,tyrell', 'TRIM,CASE_FOLD')
+ * can be interpreted: "all the PersonDTO objects where the attribute company, ignoring case and surrounding spaces,
+ * equals 'cyberdyne' or 'tyrell' are invalid".
+ *
+ * The rules are compiled to com.danianepg.predicateexclusionrules.rules.CompiledRules, which merges rules on the same
+ * field and removes duplicated or redundant values.
+ *
  *
  * @author Daniane P. Gomes
  *
@@ -66,79 +88,178 @@ public class ExclusionRuleService {
   @Autowired
   private ValidationRuleRepository validationRuleRepository;
 
+  @Autowired
+  private ExclusionRuleValueRepository exclusionRuleValueRepository;
+
   @Autowired
   private ReflectionService reflectionService;
 
-  private static Map<String, Predicate<String>> exclusionRulesLst;
+  private static final Logger LOGGER = LoggerFactory.getLogger(ExclusionRuleService.class);
+
+  /**
+   * Number of objects evaluated between two checks of the time budget, per thread.
+   */
+  private static final int CHUNK_SIZE = 256;
+
+  /**
+   * Rules grouped by field name and then by normalizations, so the field value is read once per object and normalized
+   * once for all the rules that share the same normalizations. Replaced as a whole on each load of the rules.
+   */
+  private static volatile CompiledRules compiledRules;
 
   @PostConstruct
-  public void init() {
-    exclusionRulesLst = this.decodeAllRules();
+  private void init() {
+    compiledRules = this.compileAllRules();
+  }
+
+  /**
+   * Replace the compiled rules. Later loads of the rules go through
+   * com.danianepg.predicateexclusionrules.service.RevalidationService, so the stored records are evaluated again on
+   * every change.
+   *
+   * @param rules
+   */
+  void publish(final CompiledRules rules) {
+    compiledRules = rules;
+  }
+
+  /**
+   * Rules as they were compiled on the last load of the rules.
+   *
+   * @return
+   */
+  public CompiledRules getCompiledRules() {
+    return compiledRules;
+  }
+
+  /**
+   * Number of rule values removed by the optimization on the last load of the rules.
+   *
+   * @return
+   */
+  public int getRemovedPatterns() {
+    return compiledRules.getRemovedPatterns();
   }
 
   /**
-   * Retrieve all rules from the database and process it.
+   * Retrieve all rules from the database and compile them. CONTAINS/OR values are added first, so the values they
+   * cover are dropped from the other rules. Values imported in bulk are read row by row and added one at a time, except
+   * the values of CONTAINS/AND rules that are only added once the rule is complete. A CONTAINS/OR value read after
+   * the values it covers drops them when the rules are built. Values of a rule saved after the rules were read are
+   * skipped.
    *
    * @return
    */
-  private Map<String, Predicate<String>> decodeAllRules() {
+  public CompiledRules compileAllRules() {
+
     // @formatter:off
-    return this.validationRuleRepository.findAll()
+    final Map<Long, DecodedRuleDTO> decodedRules = this.validationRuleRepository.findAll()
         .stream()
-        .map(this::deconeOneRule)
-        .collect(Collectors.toMap(PairDTO::getRule, PairDTO::getPredicate));
+        .collect(Collectors.toMap(ExclusionRule::getId, this::deconeOneRule));
     // @formatter:on
 
+    final CompiledRulesBuilder builder = new CompiledRulesBuilder();
+    decodedRules.values().stream().filter(DecodedRuleDTO::isContainsOr).forEach(builder::addRule);
+
+    this.exclusionRuleValueRepository.forEachValue((ruleId, value) -> {
+      final DecodedRuleDTO rule = decodedRules.get(ruleId);
+      if (rule == null) {
+        // Rule saved after the rules were read, it is compiled with its values on the next load of the rules
+        return;
+      }
+      if (rule.isEqualsOr() || rule.isContainsOr()) {
+        builder.addValue(rule, value);
+      } else {
+        rule.getValues().add(value);
+      }
+    });
+
+    decodedRules.values().stream().filter(DecodedRuleDTO::isEqualsOr).forEach(builder::addRule);
+    decodedRules.values().stream().filter(rule -> !rule.isEqualsOr() && !rule.isContainsOr())
+        .forEach(builder::addRule);
+
+    final CompiledRules rules = builder.build();
+    LOGGER.info("Rules of exclusion compiled: {} rules on {} fields, {} patterns removed", decodedRules.size(),
+        rules.getRulesByField().size(), rules.getRemovedPatterns());
+
+    return rules;
   }
 
   /**
-   * According to the rule configuration, create a Predicate.
+   * Split the values of the rule and decode its normalizations. Values are normalized when they are compiled.
    *
    * @param validationRule
    * @return
    */
-  private PairDTO deconeOneRule(final ExclusionRule validationRule) {
+  DecodedRuleDTO deconeOneRule(final ExclusionRule validationRule) {
 
-    PairDTO pairDTO = null;
-    List<String> values = new ArrayList<>();
+    final List<String> values = new ArrayList<>();
 
-    if (validationRule.getRuleValues().contains(",")) {
-      values = Arrays.asList(validationRule.getRuleValues().split(","));
-    } else {
-      values.add(validationRule.getRuleValues());
+    if (validationRule.getRuleValues() != null) {
+      if (validationRule.getRuleValues().contains(",")) {
+        values.addAll(Arrays.asList(validationRule.getRuleValues().split(",")));
+      } else {
+        values.add(validationRule.getRuleValues());
+      }
     }
 
-    if (validationRule.getComparator() == ComparatorEnum.EQUALS && validationRule.getOperator() == OperatorEnum.OR) {
-      pairDTO = new PairDTO(validationRule.getFieldName(), new RuleEqualsOr(values));
+    return new DecodedRuleDTO(validationRule.getFieldName(), validationRule.getOperator(),
+        validationRule.getComparator(), this.decodeNormalizations(validationRule), values);
 
-    } else {
+  }
 
-      if (validationRule.getOperator() == OperatorEnum.OR) {
-        pairDTO = new PairDTO(validationRule.getFieldName(), new RuleContainsOr(values));
-      } else {
-        pairDTO = new PairDTO(validationRule.getFieldName(), new RuleContainsAnd(values));
-      }
+  /**
+   * Convert the normalizations saved on the rule to a set. Names are not case sensitive. Unknown names are logged and
+   * skipped, so a single wrong rule does not prevent all the rules from being loaded.
+   *
+   * @param validationRule
+   * @return
+   */
+  private Set<NormalizationEnum> decodeNormalizations(final ExclusionRule validationRule) {
 
-    }
+    final Set<NormalizationEnum> normalizations = EnumSet.noneOf(NormalizationEnum.class);
 
-    return pairDTO;
+    if (validationRule.getNormalizations() != null && !validationRule.getNormalizations().isBlank()) {
+      for (final String name : validationRule.getNormalizations().split(",")) {
+        try {
+          normalizations.add(NormalizationEnum.valueOf(name.strip().toUpperCase(Locale.ROOT)));
+        } catch (final IllegalArgumentException e) {
+          LOGGER.warn("Unknown normalization '{}' on exclusion rule {} skipped", name, validationRule.getId());
+        }
+      }
+    }
 
+    return normalizations;
   }
 
   /**
-   * Retrieve the person's object fields by reflection and test its validity.
+   * Test the validity of a field value. The field value is normalized once for each group of rules that share the same
+   * normalizations.
    *
-   * @param person
-   * @param entry
+   * @param fieldValue
+   * @param rules
    * @return
    */
-  private Boolean isInvalidTestPredicate(final PersonDTO person, final Entry<String, Predicate<String>> entry) {
+  private Boolean isInvalidTestPredicate(final String fieldValue, final List<FieldRules> rules) {
 
-    final Field field = this.reflectionService.getFieldByName(person, entry.getKey());
-    final String fieldValue = String.valueOf(this.reflectionService.getFieldValue(person, field));
+    // @formatter:off
+    return rules.stream()
+        .anyMatch(fieldRules -> fieldRules
+            .test(NormalizationEnum.normalize(fieldValue, fieldRules.getNormalizations())));
+    // @formatter:on
 
-    return entry.getValue().test(fieldValue);
+  }
 
+  /**
+   * Verify if an object is invalid if it fails on any determined rule, reading each field value only once.
+   *
+   * @param fieldValue field value by field name
+   * @return
+   */
+  private Boolean isInvalid(final Function<String, String> fieldValue) {
+    final CompiledRules rules = compiledRules;
+    return rules.getRulesByField().entrySet().stream()
+        .anyMatch(e -> this.isInvalidTestPredicate(fieldValue.apply(e.getKey()), e.getValue()));
   }
 
   /**
@@ -148,7 +269,21 @@ public class ExclusionRuleService {
    * @return
    */
   public Boolean isInvalid(final PersonDTO person) {
-    return exclusionRulesLst.entrySet().stream().anyMatch(e -> this.isInvalidTestPredicate(person, e));
+    return this.isInvalid(fieldName -> {
+      final Field field = this.reflectionService.getFieldByName(person, fieldName);
+      return String.valueOf(this.reflectionService.getFieldValue(person, field));
+    });
+  }
+
+  /**
+   * Verify if an object is invalid from the field values returned by
+   * com.danianepg.predicateexclusionrules.service.ReflectionService#getFieldValues(Object).
+   *
+   * @param fieldValues
+   * @return
+   */
+  Boolean isInvalid(final Map<String, String> fieldValues) {
+    return this.isInvalid(fieldName -> String.valueOf(fieldValues.get(fieldName.toLowerCase(Locale.ROOT))));
   }
 
   /**
@@ -165,4 +300,88 @@ public class ExclusionRuleService {
     // @formatter:on
   }
 
+  /**
+   * Get only valid objects from a list, evaluating them in chunks until the time budget is over. The time is checked
+   * between chunks, so a chunk that started is always finished and its result is never partial. The evaluation also
+   * stops between chunks when the current thread is interrupted.
+   *
+   * To resume, call it again with the same list and the cursor returned.
+   *
+   * @param personDTOLst
+   * @param cursor position of the first object to evaluate, from 0 to the size of the list
+   * @param timeBudget zero or positive, budgets longer than about 292 years never expire
+   * @param evaluationMode
+   * @return
+   */
+  public PartialValidationDTO filterAllValid(final List<PersonDTO> personDTOLst, final int cursor,
+      final Duration timeBudget, final EvaluationModeEnum evaluationMode) {
+    return this.filterAllValid(personDTOLst, cursor, timeBudget, evaluationMode, System::nanoTime);
+  }
+
+  /**
+   * Same as filterAllValid(List, int, Duration, EvaluationModeEnum), reading the time from nanoTime.
+   *
+   * @param personDTOLst
+   * @param cursor
+   * @param timeBudget
+   * @param evaluationMode
+   * @param nanoTime
+   * @return
+   */
+  PartialValidationDTO filterAllValid(final List<PersonDTO> personDTOLst, final int cursor,
+      final Duration timeBudget, final EvaluationModeEnum evaluationMode, final LongSupplier nanoTime) {
+
+    if (cursor < 0 || cursor > personDTOLst.size()) {
+      throw new IllegalArgumentException(
+          "cursor must be between 0 and " + personDTOLst.size() + ", the size of the list, but was " + cursor);
+    }
+    if (timeBudget == null || timeBudget.isNegative()) {
+      throw new IllegalArgumentException("timeBudget must be zero or positive, but was " + timeBudget);
+    }
+    if (evaluationMode == null) {
+      throw new IllegalArgumentException("evaluationMode must be SEQUENTIAL or PARALLEL, but was null");
+    }
+
+    final long deadline = nanoTime.getAsLong() + this.toNanos(timeBudget);
+    final int chunkSize = evaluationMode == EvaluationModeEnum.PARALLEL
+        ? CHUNK_SIZE * ForkJoinPool.getCommonPoolParallelism()
+        : CHUNK_SIZE;
+
+    final List<PersonDTO> validLst = new ArrayList<>();
+    int position = cursor;
+
+    while (position < personDTOLst.size() && nanoTime.getAsLong() - deadline < 0
+        && !Thread.currentThread().isInterrupted()) {
+
+      final List<PersonDTO> chunk = personDTOLst.subList(position, Math.min(position + chunkSize, personDTOLst.size()));
+      final Stream<PersonDTO> stream = evaluationMode == EvaluationModeEnum.PARALLEL ? chunk.parallelStream()
+          : chunk.stream();
+
+      // @formatter:off
+      validLst.addAll(stream
+          .filter(person -> !this.isInvalid(person))
+          .collect(Collectors.toList()));
+      // @formatter:on
+
+      position += chunk.size();
+    }
+
+    return new PartialValidationDTO(validLst, position, position >= personDTOLst.size());
+  }
+
+  /**
+   * Convert the time budget to nanoseconds, saturated to Long.MAX_VALUE for the budgets that do not fit, such as
+   * ChronoUnit.FOREVER.getDuration().
+   *
+   * @param timeBudget
+   * @return
+   */
+  private long toNanos(final Duration timeBudget) {
+    try {
+      return timeBudget.toNanos();
+    } catch (final ArithmeticException e) {
+      return Long.MAX_VALUE;
+    }
+  }
+
 }
@@ -1,6 +1,9 @@
 package com.danianepg.predicateexclusionrules.service;
 
 import java.lang.reflect.Field;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.springframework.stereotype.Service;
@@ -42,4 +45,19 @@ public class ReflectionService {
     ReflectionUtils.makeAccessible(field);
     return ReflectionUtils.getField(field, target);
   }
+
+  /**
+   * Get the values of all the class fields as strings, keyed by the field name in lower case
+   *
+   * @param target
+   * @return
+   */
+  public Map<String, String> getFieldValues(final Object target) {
+
+    // @formatter:off
+    return Stream.of(target.getClass().getDeclaredFields())
+        .collect(Collectors.toMap(field -> field.getName().toLowerCase(Locale.ROOT),
+            field -> String.valueOf(this.getFieldValue(target, field))));
+    // @formatter:on
+  }
 }
@@ -0,0 +1,312 @@
+package com.danianepg.predicateexclusionrules.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.danianepg.predicateexclusionrules.data.PersonDTO;
+import com.danianepg.predicateexclusionrules.data.RevalidationDeltaDTO;
+import com.danianepg.predicateexclusionrules.enums.NormalizationEnum;
+import com.danianepg.predicateexclusionrules.rules.CompiledRules;
+import com.danianepg.predicateexclusionrules.rules.FieldRules;
+
+/**
+ * Keep a population of records and their validity, and evaluate again only the records that can change validity when
+ * the rules of exclusion change.
+ *
+ * Each stored record is kept as a copy of its field values and indexed by the value of each of its fields, normalized
+ * as the rules on that field normalize it. When the rules change, the old and the new compiled rules are compared by
+ * field and normalizations to find the rule values that were added or removed. The records holding a changed EQUALS
+ * value are looked up directly in the index, and only the distinct values of the field are tested against the changed
+ * CONTAINS values. A value that matches none of the changed values gets the same result from the old and the new
+ * rules, so its records are not evaluated again.
+ *
+ * @author Daniane P. Gomes
+ *
+ */
+@Service
+public class RevalidationService {
+
+  @Autowired
+  private ExclusionRuleService exclusionRuleService;
+
+  @Autowired
+  private ReflectionService reflectionService;
+
+  /**
+   * Field values of each stored record, copied when it is stored, so a record changed afterwards by the caller is
+   * removed from the index with the values it was indexed with.
+   */
+  private final Map<Long, Map<String, String>> records = new HashMap<>();
+
+  private final Map<Long, Boolean> invalidRecords = new HashMap<>();
+
+  /**
+   * Inverted index: field name in lower case, then normalizations, then normalized field value, then the ids of the
+   * records holding that value. The index of a field and normalizations is created the first time the rules need it and
+   * dropped when no rule uses it anymore.
+   */
+  private final Map<String, Map<Set<NormalizationEnum>, Map<String, Set<Long>>>> recordsByFieldValue = new HashMap<>();
+
+  /**
+   * Store or replace a record, validate it with the current rules and index its field values.
+   *
+   * @param id
+   * @param person
+   * @return true if the record is invalid
+   */
+  public synchronized Boolean store(final Long id, final PersonDTO person) {
+
+    this.remove(id);
+
+    final Map<String, String> fieldValues = Collections.unmodifiableMap(this.reflectionService.getFieldValues(person));
+    final Boolean isInvalid = this.exclusionRuleService.isInvalid(fieldValues);
+    this.records.put(id, fieldValues);
+    this.invalidRecords.put(id, isInvalid);
+
+    this.recordsByFieldValue.forEach((fieldName, fieldIndexes) -> fieldIndexes.forEach((normalizations,
+        fieldIndex) -> this.addToIndex(fieldIndex, id, fieldValues.get(fieldName), normalizations)));
+
+    return isInvalid;
+  }
+
+  /**
+   * Remove a record and its field values from the index.
+   *
+   * @param id
+   */
+  public synchronized void remove(final Long id) {
+
+    final Map<String, String> fieldValues = this.records.remove(id);
+    if (fieldValues == null) {
+      return;
+    }
+
+    this.invalidRecords.remove(id);
+    this.recordsByFieldValue.forEach((fieldName, fieldIndexes) -> fieldIndexes.forEach((normalizations, fieldIndex) -> {
+      final String normalizedValue = NormalizationEnum.normalize(String.valueOf(fieldValues.get(fieldName)),
+          normalizations);
+      final Set<Long> ids = fieldIndex.get(normalizedValue);
+      ids.remove(id);
+      if (ids.isEmpty()) {
+        fieldIndex.remove(normalizedValue);
+      }
+    }));
+  }
+
+  /**
+   * Current validity of a stored record.
+   *
+   * @param id
+   * @return true if the record is invalid, null if it is not stored
+   */
+  public synchronized Boolean isInvalid(final Long id) {
+    return this.invalidRecords.get(id);
+  }
+
+  /**
+   * Reload the rules from the database and evaluate again the stored records affected by the change. Every change of
+   * the rules goes through this class, so the validity of the stored records is always up to date.
+   *
+   * @return
+   */
+  public synchronized RevalidationDeltaDTO reloadAndRevalidate() {
+    return this.publishAndRevalidate(this.exclusionRuleService.compileAllRules());
+  }
+
+  /**
+   * Publish rules built from base, the rules published when the change started, and evaluate again the stored records
+   * affected by the change. When other rules were published since then, newRules would undo their change, so all the
+   * rules are loaded again from the database instead.
+   *
+   * @param base
+   * @param newRules
+   * @return
+   */
+  public synchronized RevalidationDeltaDTO publishAndRevalidate(final CompiledRules base,
+      final CompiledRules newRules) {
+
+    if (this.exclusionRuleService.getCompiledRules() != base) {
+      return this.reloadAndRevalidate();
+    }
+
+    return this.publishAndRevalidate(newRules);
+  }
+
+  private RevalidationDeltaDTO publishAndRevalidate(final CompiledRules newRules) {
+
+    final CompiledRules oldRules = this.exclusionRuleService.getCompiledRules();
+    this.exclusionRuleService.publish(newRules);
+
+    return this.revalidate(oldRules, newRules);
+  }
+
+  /**
+   * Evaluate again, with the current rules, the stored records affected by the change from oldRules to newRules.
+   *
+   * @param oldRules
+   * @param newRules
+   * @return
+   */
+  private RevalidationDeltaDTO revalidate(final CompiledRules oldRules, final CompiledRules newRules) {
+
+    final List<FieldRules> changes = this.diff(oldRules, newRules);
+    final Set<Long> affectedIds = new HashSet<>();
+
+    changes.forEach(change -> {
+      final Map<String, Set<Long>> fieldIndex = this.getFieldIndex(change);
+
+      change.getEqualsOr().forEach(value -> affectedIds.addAll(fieldIndex.getOrDefault(value, Collections.emptySet())));
+      if (change.hasContains()) {
+        fieldIndex.forEach((normalizedValue, ids) -> {
+          if (change.testContains(normalizedValue)) {
+            affectedIds.addAll(ids);
+          }
+        });
+      }
+    });
+
+    this.dropUnusedFieldIndexes(newRules);
+
+    final List<Long> becameValid = new ArrayList<>();
+    final List<Long> becameInvalid = new ArrayList<>();
+
+    affectedIds.stream().sorted().forEach(id -> {
+      final Boolean isInvalid = this.exclusionRuleService.isInvalid(this.records.get(id));
+      if (!isInvalid.equals(this.invalidRecords.put(id, isInvalid))) {
+        (isInvalid ? becameInvalid : becameValid).add(id);
+      }
+    });
+
+    final Set<String> affectedFields = changes.stream().map(FieldRules::getFieldName)
+        .collect(Collectors.toCollection(TreeSet::new));
+
+    return new RevalidationDeltaDTO(affectedFields, affectedIds.size(), becameValid, becameInvalid);
+  }
+
+  /**
+   * Index of the stored records by the value of the field of the rules, normalized as the rules normalize it. Created
+   * from the stored records the first time it is needed.
+   *
+   * @param rules
+   * @return
+   */
+  private Map<String, Set<Long>> getFieldIndex(final FieldRules rules) {
+
+    final String fieldName = rules.getFieldName().toLowerCase(Locale.ROOT);
+
+    return this.recordsByFieldValue.computeIfAbsent(fieldName, k -> new HashMap<>())
+        .computeIfAbsent(rules.getNormalizations(), normalizations -> {
+          final Map<String, Set<Long>> fieldIndex = new HashMap<>();
+          this.records.forEach(
+              (id, fieldValues) -> this.addToIndex(fieldIndex, id, fieldValues.get(fieldName), normalizations));
+          return fieldIndex;
+        });
+  }
+
+  private void addToIndex(final Map<String, Set<Long>> fieldIndex, final Long id, final String fieldValue,
+      final Set<NormalizationEnum> normalizations) {
+    // @formatter:off
+    fieldIndex.computeIfAbsent(NormalizationEnum.normalize(String.valueOf(fieldValue), normalizations),
+        k -> new HashSet<>()).add(id);
+    // @formatter:on
+  }
+
+  /**
+   * Drop the indexes of the fields and normalizations that no rule uses anymore.
+   *
+   * @param rules
+   */
+  private void dropUnusedFieldIndexes(final CompiledRules rules) {
+
+    final Set<List<Object>> keys = this.byKey(rules).keySet().stream()
+        .map(key -> Arrays.asList(String.valueOf(key.get(0)).toLowerCase(Locale.ROOT), key.get(1)))
+        .collect(Collectors.toSet());
+
+    this.recordsByFieldValue.forEach((fieldName, fieldIndexes) -> fieldIndexes.keySet()
+        .removeIf(normalizations -> !keys.contains(Arrays.asList(fieldName, normalizations))));
+    this.recordsByFieldValue.values().removeIf(Map::isEmpty);
+  }
+
+  /**
+   * Compare the rules by field and normalizations. For each group of rules that changed, create a FieldRules holding
+   * the values that were added or removed. CONTAINS/AND rules are compared as a whole. Groups of rules that did not
+   * change are shared between the old and the new rules, so they are skipped without comparing their values.
+   *
+   * @param oldRules
+   * @param newRules
+   * @return
+   */
+  private List<FieldRules> diff(final CompiledRules oldRules, final CompiledRules newRules) {
+
+    final Map<List<Object>, FieldRules> oldRulesByKey = this.byKey(oldRules);
+    final Map<List<Object>, FieldRules> newRulesByKey = this.byKey(newRules);
+
+    final Set<List<Object>> keys = new LinkedHashSet<>(oldRulesByKey.keySet());
+    keys.addAll(newRulesByKey.keySet());
+
+    final List<FieldRules> changes = new ArrayList<>();
+
+    keys.forEach(key -> {
+
+      final FieldRules oldFieldRules = oldRulesByKey.get(key);
+      final FieldRules newFieldRules = newRulesByKey.get(key);
+      if (oldFieldRules == newFieldRules) {
+        return;
+      }
+
+      final FieldRules any = oldFieldRules != null ? oldFieldRules : newFieldRules;
+      final FieldRules change = new FieldRules(any.getFieldName(), any.getNormalizations());
+
+      this.symmetricDifference(this.values(oldFieldRules, FieldRules::getContainsOr),
+          this.values(newFieldRules, FieldRules::getContainsOr)).forEach(change::addContainsOr);
+      this.symmetricDifference(this.values(oldFieldRules, rules -> rules.getEqualsOr().stream()),
+          this.values(newFieldRules, rules -> rules.getEqualsOr().stream())).forEach(change::addEqualsOr);
+      this.symmetricDifference(this.values(oldFieldRules, rules -> rules.getContainsAnd().stream()),
+          this.values(newFieldRules, rules -> rules.getContainsAnd().stream())).forEach(change::addContainsAnd);
+
+      if (!change.isEmpty()) {
+        changes.add(change);
+      }
+    });
+
+    return changes;
+  }
+
+  private Map<List<Object>, FieldRules> byKey(final CompiledRules rules) {
+    // @formatter:off
+    return rules.getFieldRules().stream()
+        .collect(Collectors.toMap(
+            fieldRules -> Arrays.asList(fieldRules.getFieldName(), fieldRules.getNormalizations()),
+            Function.identity()));
+    // @formatter:on
+  }
+
+  private <T> Set<T> values(final FieldRules rules, final Function<FieldRules, Stream<T>> values) {
+    return rules == null ? Collections.emptySet() : values.apply(rules).collect(Collectors.toSet());
+  }
+
+  private <T> List<T> symmetricDifference(final Set<T> oldValues, final Set<T> newValues) {
+
+    final List<T> difference = oldValues.stream().filter(value -> !newValues.contains(value))
+        .collect(Collectors.toList());
+    newValues.stream().filter(value -> !oldValues.contains(value)).forEach(difference::add);
+
+    return difference;
+  }
+
+}
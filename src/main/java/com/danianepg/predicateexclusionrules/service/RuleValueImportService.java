@@ -0,0 +1,147 @@
+package com.danianepg.predicateexclusionrules.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.danianepg.predicateexclusionrules.data.DecodedRuleDTO;
+import com.danianepg.predicateexclusionrules.data.RevalidationDeltaDTO;
+import com.danianepg.predicateexclusionrules.data.RuleValueImportDTO;
+import com.danianepg.predicateexclusionrules.repository.ExclusionRuleValueRepository;
+import com.danianepg.predicateexclusionrules.repository.ValidationRuleRepository;
+import com.danianepg.predicateexclusionrules.rules.CompiledRules;
+import com.danianepg.predicateexclusionrules.rules.CompiledRulesBuilder;
+
+/**
+ * Import large lists of rule values without holding the whole list in memory. Values are read one per line. Each line
+ * is stripped of surrounding whitespace and taken as a whole, commas included, and blank lines are ignored. Values are
+ * written to the database in JDBC batches.
+ *
+ * Each batch of EQUALS/OR or CONTAINS/OR values is added to a copy of the compiled rules as it is written, so the
+ * rules are never loaded again from the database. Once the values are committed, the new rules are published through
+ * com.danianepg.predicateexclusionrules.service.RevalidationService. Values of CONTAINS/AND rules are only complete at
+ * the end of the import, so those rules are loaded again instead.
+ *
+ * @author Daniane P. Gomes
+ *
+ */
+@Service
+public class RuleValueImportService {
+
+  private static final int BATCH_SIZE = 1000;
+
+  @Autowired
+  private ValidationRuleRepository validationRuleRepository;
+
+  @Autowired
+  private ExclusionRuleValueRepository exclusionRuleValueRepository;
+
+  @Autowired
+  private ExclusionRuleService exclusionRuleService;
+
+  @Autowired
+  private RevalidationService revalidationService;
+
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+
+  /**
+   * Import the values read from reader to the rule.
+   *
+   * @param ruleId
+   * @param reader
+   * @return
+   * @throws IOException
+   */
+  public RuleValueImportDTO importValues(final Long ruleId, final Reader reader) throws IOException {
+
+    // @formatter:off
+    final DecodedRuleDTO rule = this.validationRuleRepository.findById(ruleId)
+        .map(this.exclusionRuleService::deconeOneRule)
+        .orElseThrow(() -> new IllegalArgumentException("Exclusion rule " + ruleId + " not found"));
+    // @formatter:on
+
+    final CompiledRules base = this.exclusionRuleService.getCompiledRules();
+    final CompiledRulesBuilder builder = rule.isEqualsOr() || rule.isContainsOr() ? new CompiledRulesBuilder(base)
+        : null;
+
+    final long importedValues;
+    try {
+      importedValues = this.transactionTemplate.execute(status -> this.insertValues(ruleId, reader, rule, builder));
+    } catch (final UncheckedIOException e) {
+      throw e.getCause();
+    }
+
+    final RevalidationDeltaDTO revalidation = builder != null
+        ? this.revalidationService.publishAndRevalidate(base, builder.build())
+        : this.revalidationService.reloadAndRevalidate();
+
+    return new RuleValueImportDTO(ruleId, importedValues, this.exclusionRuleService.getRemovedPatterns(),
+        revalidation);
+  }
+
+  private long insertValues(final Long ruleId, final Reader reader, final DecodedRuleDTO rule,
+      final CompiledRulesBuilder builder) {
+
+    final BufferedReader bufferedReader = new BufferedReader(reader);
+    final List<String> batch = new ArrayList<>(BATCH_SIZE);
+    long importedValues = 0;
+
+    try {
+      String line;
+      while ((line = bufferedReader.readLine()) != null) {
+
+        final String value = line.strip();
+        if (value.isEmpty()) {
+          continue;
+        }
+
+        batch.add(value);
+        importedValues++;
+
+        if (batch.size() == BATCH_SIZE) {
+          this.insertBatch(ruleId, batch, rule, builder);
+        }
+      }
+    } catch (final IOException e) {
+      throw new UncheckedIOException(e);
+    }
+
+    this.insertBatch(ruleId, batch, rule, builder);
+
+    return importedValues;
+  }
+
+  /**
+   * Write the batch to the database and add its values to the builder, shortest first.
+   *
+   * @param ruleId
+   * @param batch
+   * @param rule
+   * @param builder
+   */
+  private void insertBatch(final Long ruleId, final List<String> batch, final DecodedRuleDTO rule,
+      final CompiledRulesBuilder builder) {
+
+    if (batch.isEmpty()) {
+      return;
+    }
+
+    this.exclusionRuleValueRepository.batchInsert(ruleId, batch);
+
+    if (builder != null) {
+      batch.stream().sorted(Comparator.comparingInt(String::length)).forEach(value -> builder.addValue(rule, value));
+    }
+
+    batch.clear();
+  }
+
+}
@@ -0,0 +1,190 @@
+package com.danianepg.predicateexclusionrules.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import com.danianepg.predicateexclusionrules.data.PersonDTO;
+import com.danianepg.predicateexclusionrules.entity.ExclusionRule;
+import com.danianepg.predicateexclusionrules.enums.ComparatorEnum;
+import com.danianepg.predicateexclusionrules.enums.OperatorEnum;
+import com.danianepg.predicateexclusionrules.repository.ValidationRuleRepository;
+import com.danianepg.predicateexclusionrules.rules.CompiledRules;
+import com.danianepg.predicateexclusionrules.service.ExclusionRuleService;
+import com.danianepg.predicateexclusionrules.service.RevalidationService;
+
+@SpringBootTest
+public class RuleValueImportControllerTests {
+
+  @Autowired
+  private WebApplicationContext webApplicationContext;
+
+  private MockMvc mockMvc;
+
+  @Autowired
+  private ValidationRuleRepository validationRuleRepository;
+
+  @Autowired
+  private ExclusionRuleService exclusionRuleService;
+
+  @Autowired
+  private RevalidationService revalidationService;
+
+  @BeforeEach
+  public void setUp() {
+    this.mockMvc = MockMvcBuilders.webAppContextSetup(this.webApplicationContext).build();
+  }
+
+  private PersonDTO person(final String company) {
+    final PersonDTO person = new PersonDTO();
+    person.setName("Robot");
+    person.setEmail("robot@robot.com");
+    person.setInternalCode("R001");
+    person.setCompany(company);
+    person.setLocation("NZ");
+    return person;
+  }
+
+  @Test
+  public void importValues_ok() throws Exception {
+
+    final ExclusionRule rule = new ExclusionRule();
+    rule.setFieldName("company");
+    rule.setComparator(ComparatorEnum.EQUALS);
+    rule.setOperator(OperatorEnum.OR);
+
+    try {
+      this.validationRuleRepository.save(rule);
+
+      final CompiledRules base = this.exclusionRuleService.getCompiledRules();
+
+      // @formatter:off
+      this.mockMvc.perform(post("/exclusionRules/{id}/values", rule.getId())
+              .contentType(MediaType.TEXT_PLAIN)
+              .content("Umbrella\n  Initech \n\nHooli\r\nHooli\nPied Piper, Inc.\n"))
+          .andExpect(status().isOk())
+          .andExpect(jsonPath("$.importedValues").value(5))
+          .andExpect(jsonPath("$.removedPatterns").value(1));
+      // @formatter:on
+
+      assertEquals(true, this.exclusionRuleService.isInvalid(this.person("Hooli")));
+      assertEquals(true, this.exclusionRuleService.isInvalid(this.person("Initech")));
+      assertEquals(true, this.exclusionRuleService.isInvalid(this.person("Pied Piper, Inc.")));
+      assertEquals(false, this.exclusionRuleService.isInvalid(this.person("Pied Piper")));
+      assertEquals(false, this.exclusionRuleService.isInvalid(this.person("ACME")));
+
+      // The values were added to the compiled rules, the rules of the other fields were not loaded again
+      assertSame(base.getRulesByField().get("email").get(0),
+          this.exclusionRuleService.getCompiledRules().getRulesByField().get("email").get(0));
+
+    } finally {
+      this.validationRuleRepository.delete(rule);
+      this.revalidationService.reloadAndRevalidate();
+    }
+
+    assertEquals(false, this.exclusionRuleService.isInvalid(this.person("Hooli")));
+
+  }
+
+  @Test
+  public void importValuesShorterThanInline_ok() throws Exception {
+
+    final ExclusionRule rule = new ExclusionRule();
+    rule.setFieldName("company");
+    rule.setComparator(ComparatorEnum.CONTAINS);
+    rule.setOperator(OperatorEnum.OR);
+    rule.setRuleValues("Evil Corp,Umbrella Inc");
+
+    try {
+      this.validationRuleRepository.save(rule);
+      this.revalidationService.reloadAndRevalidate();
+      final int removedPatterns = this.exclusionRuleService.getRemovedPatterns();
+
+      // @formatter:off
+      this.mockMvc.perform(post("/exclusionRules/{id}/values", rule.getId())
+              .contentType(MediaType.TEXT_PLAIN)
+              .content("Corp\n"))
+          .andExpect(status().isOk())
+          .andExpect(jsonPath("$.removedPatterns").value(removedPatterns + 1));
+      // @formatter:on
+
+      assertEquals(true, this.exclusionRuleService.isInvalid(this.person("Initech Corp")));
+
+    } finally {
+      this.validationRuleRepository.delete(rule);
+      this.revalidationService.reloadAndRevalidate();
+    }
+
+  }
+
+  @Test
+  public void importValuesCharset_ok() throws Exception {
+
+    final ExclusionRule rule = new ExclusionRule();
+    rule.setFieldName("company");
+    rule.setComparator(ComparatorEnum.EQUALS);
+    rule.setOperator(OperatorEnum.OR);
+
+    this.revalidationService.store(10L, this.person("Soci\u00E9t\u00E9 G\u00E9n\u00E9rale"));
+
+    try {
+      this.validationRuleRepository.save(rule);
+
+      // @formatter:off
+      this.mockMvc.perform(post("/exclusionRules/{id}/values", rule.getId())
+              .contentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.ISO_8859_1))
+              .content("Soci\u00E9t\u00E9 G\u00E9n\u00E9rale\n".getBytes(StandardCharsets.ISO_8859_1)))
+          .andExpect(status().isOk())
+          .andExpect(jsonPath("$.importedValues").value(1))
+          .andExpect(jsonPath("$.revalidation.becameInvalid.length()").value(1))
+          .andExpect(jsonPath("$.revalidation.becameInvalid[0]").value(10));
+      // @formatter:on
+
+      assertEquals(true, this.revalidationService.isInvalid(10L));
+
+    } finally {
+      this.validationRuleRepository.delete(rule);
+      this.revalidationService.reloadAndRevalidate();
+      this.revalidationService.remove(10L);
+    }
+
+  }
+
+  @Test
+  public void importValuesCsv_invalid() throws Exception {
+
+    // @formatter:off
+    this.mockMvc.perform(post("/exclusionRules/{id}/values", 1L)
+            .contentType("text/csv")
+            .content("Umbrella,Initech"))
+        .andExpect(status().isUnsupportedMediaType());
+    // @formatter:on
+
+  }
+
+  @Test
+  public void importValuesRuleNotFound_invalid() throws Exception {
+
+    // @formatter:off
+    this.mockMvc.perform(post("/exclusionRules/{id}/values", Long.MAX_VALUE)
+            .contentType(MediaType.TEXT_PLAIN)
+            .content("Umbrella"))
+        .andExpect(status().isNotFound());
+    // @formatter:on
+
+  }
+
+}
@@ -0,0 +1,46 @@
+package com.danianepg.predicateexclusionrules.enums;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.EnumSet;
+
+import org.junit.jupiter.api.Test;
+
+public class NormalizationEnumTests {
+
+  @Test
+  public void normalizeUnicodeSpaces_ok() {
+
+    final EnumSet<NormalizationEnum> normalizations = EnumSet.allOf(NormalizationEnum.class);
+
+    assertEquals("mars", NormalizationEnum.normalize("\u00A0Mars", normalizations));
+    assertEquals("mars", NormalizationEnum.normalize("\u3000MARS\u2003", normalizations));
+    assertEquals("mars", NormalizationEnum.normalize("\tMars\n", normalizations));
+
+  }
+
+  @Test
+  public void normalizeCaseFold_ok() {
+
+    final EnumSet<NormalizationEnum> normalizations = EnumSet.of(NormalizationEnum.CASE_FOLD);
+
+    assertEquals(NormalizationEnum.normalize("STRASSE", normalizations),
+        NormalizationEnum.normalize("stra\u00DFe", normalizations));
+    assertEquals(NormalizationEnum.normalize("\u039F\u0394\u039F\u03A3", normalizations),
+        NormalizationEnum.normalize("\u03BF\u03B4\u03BF\u03C2", normalizations));
+    assertEquals(NormalizationEnum.normalize("\u03BF\u03B4\u03BF\u03C3", normalizations),
+        NormalizationEnum.normalize("\u03BF\u03B4\u03BF\u03C2", normalizations));
+
+  }
+
+  @Test
+  public void normalizeUnchanged_ok() {
+
+    final String value = "mars";
+
+    assertSame(value, NormalizationEnum.normalize(value, EnumSet.allOf(NormalizationEnum.class)));
+
+  }
+
+}
@@ -0,0 +1,197 @@
+package com.danianepg.predicateexclusionrules.rules;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import com.danianepg.predicateexclusionrules.data.DecodedRuleDTO;
+import com.danianepg.predicateexclusionrules.enums.ComparatorEnum;
+import com.danianepg.predicateexclusionrules.enums.NormalizationEnum;
+import com.danianepg.predicateexclusionrules.enums.OperatorEnum;
+
+public class CompiledRulesBuilderTests {
+
+  private DecodedRuleDTO rule(final String fieldName, final ComparatorEnum comparator, final OperatorEnum operator,
+      final String... values) {
+    return new DecodedRuleDTO(fieldName, operator, comparator, EnumSet.noneOf(NormalizationEnum.class),
+        new ArrayList<>(Arrays.asList(values)));
+  }
+
+  private FieldRules build(final DecodedRuleDTO... rules) {
+    final CompiledRulesBuilder builder = new CompiledRulesBuilder();
+    Arrays.stream(rules).forEach(builder::addRule);
+    return builder.build().getFieldRules().get(0);
+  }
+
+  @Test
+  public void addContainsOrMerged_ok() {
+
+    final CompiledRulesBuilder builder = new CompiledRulesBuilder();
+    builder.addRule(this.rule("name", ComparatorEnum.CONTAINS, OperatorEnum.OR, "12", "1", "2"));
+    builder.addRule(this.rule("name", ComparatorEnum.CONTAINS, OperatorEnum.OR, "2", "x1"));
+
+    final CompiledRules compiledRules = builder.build();
+    final FieldRules fieldRules = compiledRules.getFieldRules().get(0);
+
+    assertEquals(1, compiledRules.getFieldRules().size());
+    assertEquals(Set.of("1", "2"), fieldRules.getContainsOr().collect(Collectors.toSet()));
+    assertEquals(3, compiledRules.getRemovedPatterns());
+
+  }
+
+  @Test
+  public void addEqualsOrCoveredByContains_ok() {
+
+    final FieldRules fieldRules = this.build(this.rule("location", ComparatorEnum.CONTAINS, OperatorEnum.OR, "moon"),
+        this.rule("location", ComparatorEnum.EQUALS, OperatorEnum.OR, "mars", "half moon", "mars"));
+
+    assertEquals(Set.of("mars"), fieldRules.getEqualsOr());
+    assertEquals(true, fieldRules.test("half moon"));
+    assertEquals(false, fieldRules.test("mars bar"));
+
+  }
+
+  @Test
+  public void addContainsAnd_ok() {
+
+    final CompiledRulesBuilder builder = new CompiledRulesBuilder();
+    builder.addRule(this.rule("internalCode", ComparatorEnum.CONTAINS, OperatorEnum.OR, "zz"));
+    builder.addRule(this.rule("internalCode", ComparatorEnum.CONTAINS, OperatorEnum.AND, "a", "ab", "b"));
+    builder.addRule(this.rule("internalCode", ComparatorEnum.CONTAINS, OperatorEnum.AND, "c", "zzz"));
+
+    final CompiledRules compiledRules = builder.build();
+    final FieldRules fieldRules = compiledRules.getFieldRules().get(0);
+
+    assertEquals(Set.of(Set.of("ab")), fieldRules.getContainsAnd());
+    assertEquals(4, compiledRules.getRemovedPatterns());
+
+  }
+
+  @Test
+  public void addContainsAndMerged_ok() {
+
+    final CompiledRulesBuilder builder = new CompiledRulesBuilder();
+    builder.addRule(this.rule("internalCode", ComparatorEnum.CONTAINS, OperatorEnum.AND, "a", "b", "c"));
+    builder.addRule(this.rule("internalCode", ComparatorEnum.CONTAINS, OperatorEnum.AND, "x", "y"));
+    builder.addRule(this.rule("internalCode", ComparatorEnum.CONTAINS, OperatorEnum.AND, "b", "a"));
+    builder.addRule(this.rule("internalCode", ComparatorEnum.CONTAINS, OperatorEnum.AND, "a", "b"));
+    builder.addRule(this.rule("internalCode", ComparatorEnum.CONTAINS, OperatorEnum.AND, "x", "y", "z"));
+
+    final CompiledRules compiledRules = builder.build();
+    final FieldRules fieldRules = compiledRules.getFieldRules().get(0);
+
+    // 'a,b,c' is dropped when 'b,a' is added, then the duplicated 'a,b' and 'x,y,z' are dropped
+    assertEquals(Set.of(Set.of("a", "b"), Set.of("x", "y")), fieldRules.getContainsAnd());
+    assertEquals(8, compiledRules.getRemovedPatterns());
+    assertEquals(true, fieldRules.test("cab"));
+    assertEquals(false, fieldRules.test("ca"));
+
+  }
+
+  @Test
+  public void addRuleDifferentFields_ok() {
+
+    final CompiledRulesBuilder builder = new CompiledRulesBuilder();
+    builder.addRule(this.rule("name", ComparatorEnum.CONTAINS, OperatorEnum.OR, "1"));
+    builder.addRule(this.rule("email", ComparatorEnum.CONTAINS, OperatorEnum.OR, "12"));
+
+    final CompiledRules compiledRules = builder.build();
+
+    assertEquals(2, compiledRules.getFieldRules().size());
+    assertEquals(0, compiledRules.getRemovedPatterns());
+
+  }
+
+  @Test
+  public void addValueToExistingRules_ok() {
+
+    final DecodedRuleDTO rule = this.rule("location", ComparatorEnum.EQUALS, OperatorEnum.OR, "mars");
+    final DecodedRuleDTO other = this.rule("name", ComparatorEnum.CONTAINS, OperatorEnum.OR, "1");
+
+    final CompiledRulesBuilder builder = new CompiledRulesBuilder();
+    builder.addRule(rule);
+    builder.addRule(other);
+    final CompiledRules base = builder.build();
+
+    final CompiledRulesBuilder nextBuilder = new CompiledRulesBuilder(base);
+    nextBuilder.addValue(rule, "jupiter");
+    nextBuilder.addValue(rule, "mars");
+    final CompiledRules next = nextBuilder.build();
+
+    assertEquals(Set.of("mars"), base.getRulesByField().get("location").get(0).getEqualsOr());
+    assertEquals(Set.of("mars", "jupiter"), next.getRulesByField().get("location").get(0).getEqualsOr());
+    assertSame(base.getRulesByField().get("name").get(0), next.getRulesByField().get("name").get(0));
+    assertEquals(1, next.getRemovedPatterns());
+
+  }
+
+  @Test
+  public void addContainsOrShorterAfterLonger_ok() {
+
+    final DecodedRuleDTO rule = this.rule("name", ComparatorEnum.CONTAINS, OperatorEnum.OR, "12", "x2y");
+    final DecodedRuleDTO equalsRule = this.rule("name", ComparatorEnum.EQUALS, OperatorEnum.OR, "a2", "b");
+    final DecodedRuleDTO andRule = this.rule("name", ComparatorEnum.CONTAINS, OperatorEnum.AND, "c", "2d");
+
+    final CompiledRulesBuilder builder = new CompiledRulesBuilder();
+    builder.addRule(rule);
+    builder.addRule(equalsRule);
+    builder.addRule(andRule);
+    final CompiledRules base = builder.build();
+
+    final CompiledRulesBuilder nextBuilder = new CompiledRulesBuilder(base);
+    nextBuilder.addValue(rule, "2");
+    final CompiledRules next = nextBuilder.build();
+    final FieldRules fieldRules = next.getFieldRules().get(0);
+
+    assertEquals(0, base.getRemovedPatterns());
+    assertEquals(Set.of("12", "x2y"), base.getFieldRules().get(0).getContainsOr().collect(Collectors.toSet()));
+    assertEquals(Set.of("2"), fieldRules.getContainsOr().collect(Collectors.toSet()));
+    assertEquals(Set.of("b"), fieldRules.getEqualsOr());
+    assertEquals(Set.of(), fieldRules.getContainsAnd());
+    assertEquals(5, next.getRemovedPatterns());
+
+  }
+
+  @Test
+  public void addContainsOrLargeInput_ok() {
+
+    final Random random = new Random(42);
+    final List<String> values = new ArrayList<>();
+
+    // '#' and '$' only at the start and the end, so a value can only contain another one that contains 'qq'
+    for (int i = 0; i < 200_000; i++) {
+      final StringBuilder value = new StringBuilder("#");
+      for (int j = 5 + random.nextInt(11); j > 0; j--) {
+        value.append((char) ('a' + random.nextInt(26)));
+      }
+      values.add(value.append('$').toString());
+    }
+    values.add("qq");
+
+    final DecodedRuleDTO rule = this.rule("name", ComparatorEnum.CONTAINS, OperatorEnum.OR,
+        values.toArray(new String[0]));
+
+    final FieldRules fieldRules = assertTimeoutPreemptively(Duration.ofSeconds(30), () -> this.build(rule));
+
+    final Set<String> kept = fieldRules.getContainsOr().collect(Collectors.toSet());
+    final Set<String> expected = new HashSet<>(values);
+    expected.removeIf(value -> value.contains("qq") && !value.equals("qq"));
+
+    assertEquals(expected, kept);
+    assertEquals(true, fieldRules.test("xxqqxx"));
+
+  }
+
+}
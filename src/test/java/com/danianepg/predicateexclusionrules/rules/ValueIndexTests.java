@@ -0,0 +1,84 @@
+package com.danianepg.predicateexclusionrules.rules;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+public class ValueIndexTests {
+
+  private String randomString(final Random random, final int maxLength) {
+    final StringBuilder value = new StringBuilder();
+    for (int i = random.nextInt(maxLength + 1); i > 0; i--) {
+      value.append("ab\u00E9\u4E2D".charAt(random.nextInt(4)));
+    }
+    return value.toString();
+  }
+
+  @Test
+  public void isAnyContainedIn_ok() {
+
+    final ValueIndex index = new ValueIndex();
+    index.add("moon");
+    index.add("1");
+
+    assertEquals(true, index.isAnyContainedIn("moon"));
+    assertEquals(true, index.isAnyContainedIn("half moon"));
+    assertEquals(true, index.isAnyContainedIn("moonlight"));
+    assertEquals(true, index.isAnyContainedIn("R2D1"));
+    assertEquals(false, index.isAnyContainedIn("moo"));
+    assertEquals(false, index.isAnyContainedIn(""));
+    assertEquals(false, index.add("moon"));
+    assertEquals(2, index.size());
+
+  }
+
+  @Test
+  public void isAnyContainedInSameAsContains_ok() {
+
+    final Random random = new Random(42);
+
+    for (int round = 0; round < 200; round++) {
+
+      final ValueIndex index = new ValueIndex();
+      final List<String> values = new ArrayList<>();
+      for (int i = random.nextInt(50); i > 0; i--) {
+        final String value = this.randomString(random, 6);
+        if (!value.isEmpty()) {
+          values.add(value);
+          index.add(value);
+        }
+      }
+
+      assertEquals(Set.copyOf(values), index.stream().collect(Collectors.toSet()));
+
+      for (int i = 0; i < 50; i++) {
+        final String text = this.randomString(random, 12);
+        assertEquals(values.stream().anyMatch(text::contains), index.isAnyContainedIn(text), text);
+        assertEquals(values.contains(text), index.contains(text), text);
+      }
+    }
+
+  }
+
+  @Test
+  public void copyNotShared_ok() {
+
+    final ValueIndex index = new ValueIndex();
+    index.add("mars");
+
+    final ValueIndex copy = new ValueIndex(index);
+    copy.add("moon");
+
+    assertEquals(false, index.isAnyContainedIn("moon"));
+    assertEquals(true, copy.isAnyContainedIn("moon"));
+    assertEquals(true, copy.isAnyContainedIn("mars"));
+
+  }
+
+}
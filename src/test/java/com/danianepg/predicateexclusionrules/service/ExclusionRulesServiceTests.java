@@ -1,25 +1,38 @@
 package com.danianepg.predicateexclusionrules.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.junit.jupiter.api.Test;
-import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
-import org.springframework.test.context.junit4.SpringRunner;
 
+import com.danianepg.predicateexclusionrules.data.PartialValidationDTO;
 import com.danianepg.predicateexclusionrules.data.PersonDTO;
+import com.danianepg.predicateexclusionrules.entity.ExclusionRule;
+import com.danianepg.predicateexclusionrules.enums.ComparatorEnum;
+import com.danianepg.predicateexclusionrules.enums.EvaluationModeEnum;
+import com.danianepg.predicateexclusionrules.enums.OperatorEnum;
+import com.danianepg.predicateexclusionrules.repository.ValidationRuleRepository;
 
-@RunWith(SpringRunner.class)
 @SpringBootTest
 public class ExclusionRulesServiceTests {
 
   @Autowired
   private ExclusionRuleService exclusionRuleService;
 
+  @Autowired
+  private RevalidationService revalidationService;
+
+  @Autowired
+  private ValidationRuleRepository validationRuleRepository;
+
   @Test
   public void isInvalidPersonNameContainsOr_ok() {
 
@@ -226,4 +239,199 @@ public class ExclusionRulesServiceTests {
 
   }
 
+  @Test
+  public void isInvalidPersonCompanyEqualsCaseFold_invalid() {
+    final PersonDTO person = new PersonDTO();
+    person.setName("Robot");
+    person.setEmail("robot@robot.com");
+    person.setInternalCode("BOT1");
+    person.setCompany(" Tyrell ");
+    person.setLocation("BR");
+
+    final Boolean isInvalid = this.exclusionRuleService.isInvalid(person);
+    assertEquals(true, isInvalid);
+
+  }
+
+  @Test
+  public void isInvalidPersonLocationEqualsNotNormalized_ok() {
+    final PersonDTO person = new PersonDTO();
+    person.setName("Robot");
+    person.setEmail("robot@robot.com");
+    person.setInternalCode("BOT1");
+    person.setCompany("ACME");
+    person.setLocation(" Mars ");
+
+    final Boolean isInvalid = this.exclusionRuleService.isInvalid(person);
+    assertEquals(false, isInvalid);
+
+  }
+
+  private List<PersonDTO> createPersonLst(final int size) {
+
+    final List<PersonDTO> personLst = new ArrayList<>();
+
+    for (int i = 0; i < size; i++) {
+      final PersonDTO person = new PersonDTO();
+      person.setName(i % 2 == 0 ? "Robot " + i : "Daniane P. Gomes");
+      person.setEmail("danianepg@gmail.com");
+      person.setInternalCode("DPG");
+      person.setCompany("ACME");
+      person.setLocation("BR");
+      personLst.add(person);
+    }
+
+    return personLst;
+  }
+
+  @Test
+  public void filterAllValidWithTimeBudget_ok() {
+
+    final List<PersonDTO> personLst = this.createPersonLst(1000);
+
+    final PartialValidationDTO sequential = this.exclusionRuleService.filterAllValid(personLst, 0,
+        Duration.ofMinutes(1), EvaluationModeEnum.SEQUENTIAL);
+    final PartialValidationDTO parallel = this.exclusionRuleService.filterAllValid(personLst, 0, Duration.ofMinutes(1),
+        EvaluationModeEnum.PARALLEL);
+
+    assertEquals(true, sequential.isComplete());
+    assertEquals(1000, sequential.getCursor());
+    assertEquals(500, sequential.getValidLst().size());
+    assertEquals(sequential.getValidLst(), parallel.getValidLst());
+
+  }
+
+  @Test
+  public void filterAllValidWithTimeBudgetResumed_ok() {
+
+    final List<PersonDTO> personLst = this.createPersonLst(1000);
+    final List<PersonDTO> validLst = new ArrayList<>();
+    int calls = 0;
+
+    // Each call reads a clock that ticks once per reading, so the budget of 2 ticks expires after the first chunk
+    PartialValidationDTO partial = new PartialValidationDTO(new ArrayList<>(), 0, false);
+    while (!partial.isComplete()) {
+      final AtomicLong ticks = new AtomicLong();
+      partial = this.exclusionRuleService.filterAllValid(personLst, partial.getCursor(), Duration.ofNanos(2),
+          EvaluationModeEnum.SEQUENTIAL, ticks::getAndIncrement);
+      validLst.addAll(partial.getValidLst());
+      calls++;
+    }
+
+    assertEquals(4, calls);
+    assertEquals(1000, partial.getCursor());
+    assertEquals(this.exclusionRuleService.filterAllValid(personLst), validLst);
+
+  }
+
+  @Test
+  public void filterAllValidWithTimeBudgetResumedParallel_ok() {
+
+    final List<PersonDTO> personLst = this.createPersonLst(1000);
+
+    final AtomicLong ticks = new AtomicLong();
+    final PartialValidationDTO expired = this.exclusionRuleService.filterAllValid(personLst, 0, Duration.ofNanos(2),
+        EvaluationModeEnum.SEQUENTIAL, ticks::getAndIncrement);
+
+    assertEquals(false, expired.isComplete());
+    assertEquals(256, expired.getCursor());
+
+    final PartialValidationDTO resumed = this.exclusionRuleService.filterAllValid(personLst, expired.getCursor(),
+        Duration.ofMinutes(1), EvaluationModeEnum.PARALLEL);
+
+    final List<PersonDTO> validLst = new ArrayList<>(expired.getValidLst());
+    validLst.addAll(resumed.getValidLst());
+
+    assertEquals(true, resumed.isComplete());
+    assertEquals(this.exclusionRuleService.filterAllValid(personLst), validLst);
+
+  }
+
+  @Test
+  public void filterAllValidWithTimeBudgetInterrupted_ok() {
+
+    final List<PersonDTO> personLst = this.createPersonLst(1000);
+
+    Thread.currentThread().interrupt();
+    try {
+      final PartialValidationDTO interrupted = this.exclusionRuleService.filterAllValid(personLst, 0,
+          Duration.ofMinutes(1), EvaluationModeEnum.SEQUENTIAL);
+
+      assertEquals(false, interrupted.isComplete());
+      assertEquals(0, interrupted.getCursor());
+      assertEquals(0, interrupted.getValidLst().size());
+
+    } finally {
+      // The interrupt flag is left for the caller, clear it for the next tests
+      assertEquals(true, Thread.interrupted());
+    }
+
+  }
+
+  @Test
+  public void filterAllValidWithUnlimitedTimeBudget_ok() {
+
+    final List<PersonDTO> personLst = this.createPersonLst(1000);
+
+    final PartialValidationDTO forever = this.exclusionRuleService.filterAllValid(personLst, 0,
+        ChronoUnit.FOREVER.getDuration(), EvaluationModeEnum.SEQUENTIAL);
+    final PartialValidationDTO maxSeconds = this.exclusionRuleService.filterAllValid(personLst, 0,
+        Duration.ofSeconds(Long.MAX_VALUE), EvaluationModeEnum.PARALLEL);
+
+    assertEquals(true, forever.isComplete());
+    assertEquals(true, maxSeconds.isComplete());
+    assertEquals(this.exclusionRuleService.filterAllValid(personLst), forever.getValidLst());
+    assertEquals(forever.getValidLst(), maxSeconds.getValidLst());
+
+  }
+
+  @Test
+  public void filterAllValidWithTimeBudget_invalid() {
+
+    final List<PersonDTO> personLst = this.createPersonLst(10);
+
+    assertThrows(IllegalArgumentException.class, () -> this.exclusionRuleService.filterAllValid(personLst, -1,
+        Duration.ofMinutes(1), EvaluationModeEnum.SEQUENTIAL));
+    assertThrows(IllegalArgumentException.class, () -> this.exclusionRuleService.filterAllValid(personLst, 11,
+        Duration.ofMinutes(1), EvaluationModeEnum.SEQUENTIAL));
+    assertThrows(IllegalArgumentException.class,
+        () -> this.exclusionRuleService.filterAllValid(personLst, 0, null, EvaluationModeEnum.SEQUENTIAL));
+    assertThrows(IllegalArgumentException.class, () -> this.exclusionRuleService.filterAllValid(personLst, 0,
+        Duration.ofSeconds(-1), EvaluationModeEnum.SEQUENTIAL));
+
+  }
+
+  @Test
+  public void isInvalidUnknownNormalizationSkipped_ok() {
+
+    final ExclusionRule rule = new ExclusionRule();
+    rule.setFieldName("company");
+    rule.setComparator(ComparatorEnum.EQUALS);
+    rule.setOperator(OperatorEnum.OR);
+    rule.setRuleValues("Initech");
+    rule.setNormalizations("trim,CASE-FOLD");
+
+    final PersonDTO person = new PersonDTO();
+    person.setName("Robot");
+    person.setEmail("robot@robot.com");
+    person.setInternalCode("R001");
+    person.setLocation("NZ");
+
+    try {
+      this.validationRuleRepository.save(rule);
+      this.revalidationService.reloadAndRevalidate();
+
+      person.setCompany(" Initech ");
+      assertEquals(true, this.exclusionRuleService.isInvalid(person));
+
+      person.setCompany("INITECH");
+      assertEquals(false, this.exclusionRuleService.isInvalid(person));
+
+    } finally {
+      this.validationRuleRepository.delete(rule);
+      this.revalidationService.reloadAndRevalidate();
+    }
+
+  }
+
 }
@@ -0,0 +1,183 @@
+package com.danianepg.predicateexclusionrules.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.danianepg.predicateexclusionrules.data.PersonDTO;
+import com.danianepg.predicateexclusionrules.data.RevalidationDeltaDTO;
+import com.danianepg.predicateexclusionrules.entity.ExclusionRule;
+import com.danianepg.predicateexclusionrules.enums.ComparatorEnum;
+import com.danianepg.predicateexclusionrules.enums.OperatorEnum;
+import com.danianepg.predicateexclusionrules.repository.ValidationRuleRepository;
+import com.danianepg.predicateexclusionrules.rules.CompiledRules;
+
+@SpringBootTest
+public class RevalidationServiceTests {
+
+  @Autowired
+  private RevalidationService revalidationService;
+
+  @Autowired
+  private ExclusionRuleService exclusionRuleService;
+
+  @Autowired
+  private ValidationRuleRepository validationRuleRepository;
+
+  private PersonDTO person(final String company, final String location) {
+    final PersonDTO person = new PersonDTO();
+    person.setName("Robot");
+    person.setEmail("robot@robot.com");
+    person.setInternalCode("R001");
+    person.setCompany(company);
+    person.setLocation(location);
+    return person;
+  }
+
+  @Test
+  public void reloadAndRevalidateRuleAddedAndRemoved_ok() {
+
+    this.revalidationService.store(1L, this.person("ACME", "NZ"));
+    this.revalidationService.store(2L, this.person("Evil Corp", "NZ"));
+    this.revalidationService.store(3L, this.person("ACME", "mars"));
+
+    final ExclusionRule rule = new ExclusionRule();
+    rule.setFieldName("company");
+    rule.setComparator(ComparatorEnum.CONTAINS);
+    rule.setOperator(OperatorEnum.OR);
+    rule.setRuleValues("Evil");
+
+    try {
+      this.validationRuleRepository.save(rule);
+      final RevalidationDeltaDTO added = this.revalidationService.reloadAndRevalidate();
+
+      assertEquals(Collections.singleton("company"), added.getAffectedFields());
+      assertEquals(1, added.getReevaluated());
+      assertEquals(Arrays.asList(2L), added.getBecameInvalid());
+      assertEquals(Collections.emptyList(), added.getBecameValid());
+      assertEquals(true, this.revalidationService.isInvalid(2L));
+      assertEquals(true, this.revalidationService.isInvalid(3L));
+
+      this.validationRuleRepository.delete(rule);
+      final RevalidationDeltaDTO removed = this.revalidationService.reloadAndRevalidate();
+
+      assertEquals(Arrays.asList(2L), removed.getBecameValid());
+      assertEquals(Collections.emptyList(), removed.getBecameInvalid());
+      assertEquals(false, this.revalidationService.isInvalid(2L));
+
+    } finally {
+      if (rule.getId() != null && this.validationRuleRepository.existsById(rule.getId())) {
+        this.validationRuleRepository.delete(rule);
+      }
+      this.revalidationService.reloadAndRevalidate();
+      this.revalidationService.remove(1L);
+      this.revalidationService.remove(2L);
+      this.revalidationService.remove(3L);
+    }
+
+  }
+
+  @Test
+  public void publishAndRevalidateStaleBaseReloaded_ok() {
+
+    this.revalidationService.store(4L, this.person("Initech", "NZ"));
+    final CompiledRules base = this.exclusionRuleService.getCompiledRules();
+
+    final ExclusionRule rule = new ExclusionRule();
+    rule.setFieldName("company");
+    rule.setComparator(ComparatorEnum.EQUALS);
+    rule.setOperator(OperatorEnum.OR);
+    rule.setRuleValues("Initech");
+
+    try {
+      this.validationRuleRepository.save(rule);
+      this.revalidationService.reloadAndRevalidate();
+      assertEquals(true, this.revalidationService.isInvalid(4L));
+
+      // Publishing rules built from a stale base would undo the rule added since then
+      final RevalidationDeltaDTO delta = this.revalidationService.publishAndRevalidate(base, base);
+
+      assertEquals(Collections.emptyList(), delta.getBecameValid());
+      assertEquals(true, this.revalidationService.isInvalid(4L));
+
+    } finally {
+      this.validationRuleRepository.delete(rule);
+      this.revalidationService.reloadAndRevalidate();
+      this.revalidationService.remove(4L);
+    }
+
+  }
+
+  @Test
+  public void storeChangedRecordAgain_ok() {
+
+    final PersonDTO person = this.person("Hooli", "NZ");
+    this.revalidationService.store(5L, person);
+
+    // The caller changes the record it stored and stores it again
+    person.setCompany("Pied Piper");
+    this.revalidationService.store(5L, person);
+
+    final ExclusionRule rule = new ExclusionRule();
+    rule.setFieldName("company");
+    rule.setComparator(ComparatorEnum.EQUALS);
+    rule.setOperator(OperatorEnum.OR);
+    rule.setRuleValues("Hooli");
+
+    try {
+      this.validationRuleRepository.save(rule);
+      final RevalidationDeltaDTO hooli = this.revalidationService.reloadAndRevalidate();
+
+      assertEquals(0, hooli.getReevaluated());
+      assertEquals(false, this.revalidationService.isInvalid(5L));
+
+      rule.setRuleValues("Pied Piper");
+      this.validationRuleRepository.save(rule);
+      final RevalidationDeltaDTO piedPiper = this.revalidationService.reloadAndRevalidate();
+
+      assertEquals(Arrays.asList(5L), piedPiper.getBecameInvalid());
+
+    } finally {
+      this.validationRuleRepository.delete(rule);
+      this.revalidationService.reloadAndRevalidate();
+      this.revalidationService.remove(5L);
+    }
+
+  }
+
+  @Test
+  public void reloadAndRevalidateNormalizedEquals_ok() {
+
+    this.revalidationService.store(6L, this.person("ACME", " VENUS"));
+    this.revalidationService.store(7L, this.person("ACME", "venusian"));
+
+    final ExclusionRule rule = new ExclusionRule();
+    rule.setFieldName("location");
+    rule.setComparator(ComparatorEnum.EQUALS);
+    rule.setOperator(OperatorEnum.OR);
+    rule.setRuleValues("Venus");
+    rule.setNormalizations("TRIM,CASE_FOLD");
+
+    try {
+      this.validationRuleRepository.save(rule);
+      final RevalidationDeltaDTO delta = this.revalidationService.reloadAndRevalidate();
+
+      assertEquals(1, delta.getReevaluated());
+      assertEquals(Arrays.asList(6L), delta.getBecameInvalid());
+      assertEquals(false, this.revalidationService.isInvalid(7L));
+
+    } finally {
+      this.validationRuleRepository.delete(rule);
+      this.revalidationService.reloadAndRevalidate();
+      this.revalidationService.remove(6L);
+      this.revalidationService.remove(7L);
+    }
+
+  }
+
+}